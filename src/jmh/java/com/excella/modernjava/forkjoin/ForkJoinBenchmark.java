@@ -0,0 +1,69 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * forkJoinSum end to end (array materialization included) and the bare reduction over a prebuilt
+ * array. Sizes stop at 1e8: forkJoinSum(1e9) needs an 8 GB array, pass -Pjmh.sizes with a larger
+ * heap to go further.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+public class ForkJoinBenchmark {
+
+  @Param({ "1000", "1000000", "10000000", "100000000" })
+  private long size;
+
+  @Param({ "1", "2", "4", "8" })
+  private int threads;
+
+  private ForkJoinPool pool;
+  private ForkJoinPool previousPool;
+  private long[] numbers;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    pool = new ForkJoinPool(threads);
+    // forkJoinSum runs on Reducers.pool(), so that's where the thread count has to go
+    previousPool = Reducers.pool();
+    Reducers.setPool(pool);
+    numbers = LongStream.rangeClosed(1, size).toArray();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Reducers.setPool(previousPool);
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public long forkJoinSum() {
+    return ForkJoinSumCalculator.forkJoinSum(size);
+  }
+
+  @Benchmark
+  public long forkJoinReduce() {
+    return pool.invoke(new ForkJoinSumCalculator(numbers));
+  }
+
+}
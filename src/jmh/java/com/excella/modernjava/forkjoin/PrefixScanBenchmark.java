@@ -0,0 +1,81 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Running totals into a separate array: {@link PrefixScan} vs copy + Arrays.parallelPrefix vs a loop.
+ * Arrays.parallelPrefix always runs on the common pool, so {@code threads} only applies to PrefixScan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+public class PrefixScanBenchmark {
+
+  @Param({ "1000", "1000000", "100000000" })
+  private int size;
+
+  @Param({ "1", "2", "4", "8" })
+  private int threads;
+
+  private ForkJoinPool previousPool;
+  private long[] source;
+  private long[] target;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    previousPool = Reducers.pool();
+    Reducers.setPool(new ForkJoinPool(threads));
+    source = LongStream.rangeClosed(1, size).toArray();
+    target = new long[size];
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Reducers.pool().shutdown();
+    Reducers.setPool(previousPool);
+  }
+
+  @Benchmark
+  public long[] prefixScan() {
+    PrefixScan.scan(source, target, Long::sum);
+    return target;
+  }
+
+  @Benchmark
+  public long[] arraysParallelPrefix() {
+    System.arraycopy(source, 0, target, 0, size);
+    Arrays.parallelPrefix(target, Long::sum);
+    return target;
+  }
+
+  @Benchmark
+  public long[] sequentialLoop() {
+    long running = 0;
+    for (int i = 0; i < size; i++) {
+      running += source[i];
+      target[i] = running;
+    }
+    return target;
+  }
+
+}
@@ -0,0 +1,73 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Iterative vs Spliterator based word counts over a generated text of {@code size} chars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+public class WordCountBenchmark {
+
+  @Param({ "1000", "1000000", "100000000" })
+  private int size;
+
+  @Param({ "1", "2", "4", "8" })
+  private int threads;
+
+  private ForkJoinPool pool;
+  private String text;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    pool = new ForkJoinPool(threads);
+    Random random = new Random(42);
+    StringBuilder builder = new StringBuilder(size);
+    while (builder.length() < size) {
+      builder.append(WordCount.SENTENCE, 0, Math.min(1 + random.nextInt(WordCount.SENTENCE.length()),
+          size - builder.length()));
+    }
+    text = builder.toString();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public int countWordsIteratively() {
+    return WordCount.countWordsIteratively(text);
+  }
+
+  @Benchmark
+  public int countWords() {
+    return pool.submit(() -> WordCount.countWords(text)).join();
+  }
+
+  @Benchmark
+  public int countWordsUnboxed() {
+    return pool.submit(() -> WordCount.countWordsUnboxed(text)).join();
+  }
+
+}
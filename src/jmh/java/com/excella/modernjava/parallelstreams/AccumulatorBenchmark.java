@@ -0,0 +1,93 @@
+package com.excella.modernjava.parallelstreams;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Side-effect sinks of a parallel forEach against a plain reduce, see {@link StripedLongAccumulator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+public class AccumulatorBenchmark {
+
+  @Param({ "1000000", "100000000" })
+  private long size;
+
+  @Param({ "1", "2", "4", "8" })
+  private int threads;
+
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public long atomicLong() {
+    AtomicLong total = new AtomicLong();
+    return pool.submit(() -> {
+      LongStream.rangeClosed(1, size).parallel().forEach(total::addAndGet);
+      return total.get();
+    }).join();
+  }
+
+  @Benchmark
+  public long longAdder() {
+    LongAdder total = new LongAdder();
+    return pool.submit(() -> {
+      LongStream.rangeClosed(1, size).parallel().forEach(total::add);
+      return total.sum();
+    }).join();
+  }
+
+  @Benchmark
+  public long striped() {
+    StripedLongAccumulator total = StripedLongAccumulator.sum();
+    return pool.submit(() -> {
+      LongStream.rangeClosed(1, size).parallel().forEach(total);
+      return total.get();
+    }).join();
+  }
+
+  @Benchmark
+  public long stripedMax() {
+    StripedLongAccumulator max = StripedLongAccumulator.max();
+    return pool.submit(() -> {
+      LongStream.rangeClosed(1, size).parallel().forEach(max);
+      return max.get();
+    }).join();
+  }
+
+  @Benchmark
+  public long reduce() {
+    return pool.submit(() -> LongStream.rangeClosed(1, size).parallel().sum()).join();
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.excella.modernjava.parallelstreams;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parallel variants from {@link ParallelStreams}. Each pipeline is submitted to a pool sized by
+ * {@code threads}, a parallel stream started from inside a ForkJoinPool runs on that pool instead
+ * of the common one.
+ *
+ * parallelIterateSum is left out on purpose, it has no limit and never terminates. Sizes stop at
+ * 1e8: the iterate variants box every element and at 1e9 a single invocation runs for minutes in
+ * the 4 GB heap, pass -Pjmh.sizes with a larger heap to go further.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+public class ParallelStreamBenchmark {
+
+  @Param({ "1000", "1000000", "10000000", "100000000" })
+  private long size;
+
+  @Param({ "1", "2", "4", "8" })
+  private int threads;
+
+  private ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    pool = new ForkJoinPool(threads);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public long parallelSum() {
+    return inPool(ParallelStreams::parallelSum);
+  }
+
+  @Benchmark
+  public long parallelJumpIterateSum() {
+    return inPool(ParallelStreams::parallelJumpIterateSum);
+  }
+
+  @Benchmark
+  public long parallelRangedSum() {
+    return inPool(ParallelStreams::parallelRangedSum);
+  }
+
+  @Benchmark
+  public long sideEffectParallelSum() {
+    return inPool(ParallelStreams::sideEffectParallelSum);
+  }
+
+  @Benchmark
+  public long stripedSideEffectParallelSum() {
+    return inPool(ParallelStreams::stripedSideEffectParallelSum);
+  }
+
+  private long inPool(LongUnaryOperator sum) {
+    return pool.submit(() -> sum.applyAsLong(size)).join();
+  }
+
+}
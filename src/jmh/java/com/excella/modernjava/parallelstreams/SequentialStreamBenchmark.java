@@ -0,0 +1,56 @@
+package com.excella.modernjava.parallelstreams;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single threaded baselines from {@link ParallelStreams}, the parallel variants live in
+ * {@link ParallelStreamBenchmark}. Sizes stop at 1e8 for the same reason as there.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+public class SequentialStreamBenchmark {
+
+  @Param({ "1000", "1000000", "10000000", "100000000" })
+  private long size;
+
+  @Benchmark
+  public long iterativeSum() {
+    return ParallelStreams.iterativeSum(size);
+  }
+
+  @Benchmark
+  public long sequentialSum() {
+    return ParallelStreams.sequentialSum(size);
+  }
+
+  @Benchmark
+  public long jumpIterateSum() {
+    return ParallelStreams.jumpIterateSum(size);
+  }
+
+  @Benchmark
+  public long rangedSum() {
+    return ParallelStreams.rangedSum(size);
+  }
+
+  @Benchmark
+  public long sideEffectSum() {
+    return ParallelStreams.sideEffectSum(size);
+  }
+
+}
@@ -0,0 +1,44 @@
+package com.excella.modernjava.shop;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Discounting and rounding one price on 64 threads at once: Util.format, every thread going through the one
+ * synchronized DecimalFormat, vs {@link Prices} on minor units formatted into a per-thread buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+@Threads(64)
+public class PriceFormatBenchmark {
+
+    private final char[] buffer = new char[Prices.MAX_LENGTH];
+    private final long minorUnits = ThreadLocalRandom.current().nextLong(100, 100_000);
+    private final double price = Prices.toDouble(minorUnits);
+
+    @Benchmark
+    public double utilFormat() {
+        return Util.format(price * (100 - 10) / 100);
+    }
+
+    @Benchmark
+    public int minorUnits() {
+        return Prices.format(Prices.percentOff(minorUnits, 10), buffer, 0);
+    }
+
+}
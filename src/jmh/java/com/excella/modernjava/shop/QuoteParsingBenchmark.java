@@ -0,0 +1,88 @@
+package com.excella.modernjava.shop;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing {@code size} quotes: Quote.parse vs {@link QuoteCodec} on the same text vs the binary encoding.
+ * Run with -prof gc to compare the allocation rates, the codec paths should show ~0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2, jvmArgs = { "-Xms4G", "-Xmx4G" })
+@Measurement(iterations = 5)
+@Warmup(iterations = 5)
+public class QuoteParsingBenchmark {
+
+    private static final String[] SHOPS = { "BestPrice", "LetsSaveBig", "MyFavoriteShop", "BuyItAll" };
+
+    @Param({ "1000", "1000000" })
+    private int size;
+
+    private String[] texts;
+    private ByteBuffer binary;
+    private final QuoteView view = new QuoteView();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Discount.Code[] codes = Discount.Code.values();
+        texts = new String[size];
+        binary = ByteBuffer.allocateDirect(size * QuoteCodec.binarySize("MyFavoriteShop"));
+        for (int i = 0; i < size; i++) {
+            String shop = SHOPS[i % SHOPS.length];
+            long price = random.nextInt(20_000);
+            Discount.Code code = codes[random.nextInt(codes.length)];
+            texts[i] = shop + ":" + Prices.toString(price) + ":" + code;
+            QuoteCodec.write(binary, shop, price, code);
+        }
+        binary.flip();
+    }
+
+    @Benchmark
+    public long splitParse() {
+        long total = 0;
+        for (String text : texts) {
+            Quote quote = Quote.parse(text);
+            total += quote.getPrice() + quote.getDiscountCode().ordinal();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long textView() {
+        long total = 0;
+        for (String text : texts) {
+            QuoteView quote = QuoteCodec.parse(text, view);
+            total += quote.getPrice() + quote.getDiscountCode().ordinal();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long binaryView() {
+        long total = 0;
+        ByteBuffer quotes = binary.duplicate();
+        while (quotes.hasRemaining()) {
+            QuoteView quote = QuoteCodec.read(quotes, view);
+            total += quote.getPrice() + quote.getDiscountCode().ordinal();
+        }
+        return total;
+    }
+
+}
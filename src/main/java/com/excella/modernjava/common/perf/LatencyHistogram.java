@@ -0,0 +1,91 @@
+package com.excella.modernjava.common.perf;
+
+/**
+ * Log-linear histogram of nanosecond latencies, mergeable by adding the buckets. Every power of two
+ * is cut into 2^SUB_BITS buckets, so recorded values are off by at most ~3%, with a fixed footprint
+ * and no allocation per recorded value.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  private final long[] counts = new long[(64 - SUB_BITS) * SUB_BUCKETS];
+  private long total;
+  private long min = Long.MAX_VALUE;
+  private long max;
+  private double sum;
+
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts[bucketOf(value)]++;
+    total++;
+    sum += value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    total += other.total;
+    sum += other.sum;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  public long count() {
+    return total;
+  }
+
+  public long min() {
+    return total == 0 ? 0 : min;
+  }
+
+  public long max() {
+    return max;
+  }
+
+  public double mean() {
+    return total == 0 ? 0 : sum / total;
+  }
+
+  /**
+   * Upper bound of the bucket holding the given percentile (0-100), capped by the recorded max.
+   */
+  public long percentile(double percentile) {
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(max, upperBoundOf(i));
+      }
+    }
+    return max;
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // keep the top SUB_BITS + 1 bits, the leading one picks the power of two and the rest the bucket
+    int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS - 1;
+    int sub = (int) (value >>> shift) - SUB_BUCKETS;
+    return (shift + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+  }
+
+}
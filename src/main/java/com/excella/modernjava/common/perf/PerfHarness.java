@@ -0,0 +1,156 @@
+package com.excella.modernjava.common.perf;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lightweight in-process measurements for the console harnesses, for when a full JMH run is too
+ * much. Each task is warmed up until the last WINDOW run times agree within the tolerance (or
+ * maxWarmup runs), then run {@code iterations} times into a {@link LatencyHistogram}, together with
+ * the bytes allocated by all threads, process CPU time and GC activity over the measured runs.
+ *
+ * Results are kept in order so {@link #printComparison()} can show them side by side, relative to
+ * the first one.
+ */
+public class PerfHarness {
+
+  static final int WINDOW = 5;
+
+  private final int maxWarmup;
+  private final int iterations;
+  private final double tolerance;
+  private final List<PerfResult> results = new ArrayList<>();
+
+  @SuppressWarnings("unused")
+  private volatile int sink;
+
+  public PerfHarness() {
+    this(50, 20, 0.05);
+  }
+
+  public PerfHarness(int maxWarmup, int iterations, double tolerance) {
+    this.maxWarmup = maxWarmup;
+    this.iterations = iterations;
+    this.tolerance = tolerance;
+  }
+
+  public <T, R> PerfResult measure(String name, Function<T, R> f, T input) {
+    return measure(name, () -> f.apply(input));
+  }
+
+  public PerfResult measure(String name, Supplier<?> task) {
+    int warmup = warmUp(task);
+
+    LatencyHistogram latency = new LatencyHistogram();
+    Snapshot before = Snapshot.take();
+    for (int i = 0; i < iterations; i++) {
+      latency.record(timeOnce(task));
+    }
+    Snapshot after = Snapshot.take();
+
+    PerfResult result = new PerfResult(name, warmup, latency,
+        before.allocatedBytes < 0 ? -1 : after.allocatedBytes - before.allocatedBytes,
+        before.cpuNanos < 0 ? -1 : after.cpuNanos - before.cpuNanos,
+        after.gcCount - before.gcCount, after.gcMillis - before.gcMillis);
+    results.add(result);
+    return result;
+  }
+
+  private int warmUp(Supplier<?> task) {
+    long[] window = new long[WINDOW];
+    for (int i = 0; i < maxWarmup; i++) {
+      window[i % WINDOW] = timeOnce(task);
+      if (i + 1 >= WINDOW && isSteady(window)) {
+        return i + 1;
+      }
+    }
+    return maxWarmup;
+  }
+
+  private boolean isSteady(long[] window) {
+    long[] sorted = window.clone();
+    Arrays.sort(sorted);
+    long median = sorted[sorted.length / 2];
+    return median == 0 || (double) (sorted[sorted.length - 1] - sorted[0]) / median <= tolerance;
+  }
+
+  private long timeOnce(Supplier<?> task) {
+    long start = System.nanoTime();
+    Object result = task.get();
+    long duration = System.nanoTime() - start;
+    // keep the JIT from dropping the work
+    sink ^= System.identityHashCode(result);
+    return duration;
+  }
+
+  public List<PerfResult> getResults() {
+    return results;
+  }
+
+  public void printComparison() {
+    System.out.printf("%-40s %10s %10s %10s %10s %8s %14s %12s %6s %6s%n", "Task", "p50 ms", "p99 ms", "p99.9 ms",
+        "max ms", "vs 1st", "alloc B/op", "cpu ms/op", "gcs", "warm");
+    double reference = results.isEmpty() ? 0 : results.get(0).getLatency().percentile(50);
+    for (PerfResult result : results) {
+      LatencyHistogram latency = result.getLatency();
+      System.out.printf("%-40s %10.3f %10.3f %10.3f %10.3f %7.2fx %14d %12.3f %6d %6d%n", result.getName(),
+          PerfResult.millis(latency.percentile(50)), PerfResult.millis(latency.percentile(99)),
+          PerfResult.millis(latency.percentile(99.9)), PerfResult.millis(latency.max()),
+          reference == 0 ? 0 : latency.percentile(50) / reference, result.getAllocatedBytesPerOp(),
+          PerfResult.millis(result.getCpuNanosPerOp()), result.getGcCount(), result.getWarmupIterations());
+    }
+  }
+
+  private static class Snapshot {
+
+    private final long allocatedBytes;
+    private final long cpuNanos;
+    private final long gcCount;
+    private final long gcMillis;
+
+    private Snapshot(long allocatedBytes, long cpuNanos, long gcCount, long gcMillis) {
+      this.allocatedBytes = allocatedBytes;
+      this.cpuNanos = cpuNanos;
+      this.gcCount = gcCount;
+      this.gcMillis = gcMillis;
+    }
+
+    /**
+     * Allocation is summed over the live threads, so bytes of threads that die in between are lost.
+     */
+    static Snapshot take() {
+      long allocated = -1;
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+          allocated = 0;
+          for (long bytes : sunThreads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            allocated += Math.max(0, bytes);
+          }
+        }
+      }
+      long cpu = -1;
+      OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+      if (os instanceof com.sun.management.OperatingSystemMXBean) {
+        cpu = ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+      }
+      long gcCount = 0;
+      long gcMillis = 0;
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        gcCount += Math.max(0, gc.getCollectionCount());
+        gcMillis += Math.max(0, gc.getCollectionTime());
+      }
+      return new Snapshot(allocated, cpu, gcCount, gcMillis);
+    }
+
+  }
+
+}
@@ -0,0 +1,68 @@
+package com.excella.modernjava.common.perf;
+
+/**
+ * What {@link PerfHarness} measured for one task, after warmup.
+ */
+public class PerfResult {
+
+  private final String name;
+  private final int warmupIterations;
+  private final LatencyHistogram latency;
+  private final long allocatedBytes;
+  private final long cpuNanos;
+  private final long gcCount;
+  private final long gcMillis;
+
+  PerfResult(String name, int warmupIterations, LatencyHistogram latency, long allocatedBytes, long cpuNanos,
+      long gcCount, long gcMillis) {
+    this.name = name;
+    this.warmupIterations = warmupIterations;
+    this.latency = latency;
+    this.allocatedBytes = allocatedBytes;
+    this.cpuNanos = cpuNanos;
+    this.gcCount = gcCount;
+    this.gcMillis = gcMillis;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getWarmupIterations() {
+    return warmupIterations;
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  /** Bytes allocated by all threads per measured iteration, -1 when the JVM can't tell. */
+  public long getAllocatedBytesPerOp() {
+    return allocatedBytes < 0 ? -1 : allocatedBytes / Math.max(1, latency.count());
+  }
+
+  /** Process CPU time per measured iteration, -1 when the JVM can't tell. */
+  public long getCpuNanosPerOp() {
+    return cpuNanos < 0 ? -1 : cpuNanos / Math.max(1, latency.count());
+  }
+
+  public long getGcCount() {
+    return gcCount;
+  }
+
+  public long getGcMillis() {
+    return gcMillis;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: p50 %.3f ms, p99 %.3f ms, max %.3f ms (%d runs, %d warmup)", name,
+        millis(latency.percentile(50)), millis(latency.percentile(99)), millis(latency.max()), latency.count(),
+        warmupIterations);
+  }
+
+  static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+}
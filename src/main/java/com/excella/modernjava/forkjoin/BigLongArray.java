@@ -0,0 +1,269 @@
+package com.excella.modernjava.forkjoin;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A long[] that is not capped at Integer.MAX_VALUE elements and lives outside the GC managed heap.
+ * Values are stored in direct buffers of SEGMENT_LENGTH longs, indexed with a long, and freed
+ * explicitly with {@link #close()} rather than waiting for a GC to find the buffers.
+ *
+ * Direct memory is limited by -XX:MaxDirectMemorySize (the max heap size by default).
+ */
+public class BigLongArray implements AutoCloseable {
+
+  static final int SEGMENT_SHIFT = 24;
+  static final int SEGMENT_LENGTH = 1 << SEGMENT_SHIFT;
+  private static final long SEGMENT_MASK = SEGMENT_LENGTH - 1;
+
+  private final long size;
+  private ByteBuffer[] buffers;
+  private LongBuffer[] segments;
+
+  public BigLongArray(long size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Negative size: " + size);
+    }
+    this.size = size;
+    int segmentCount = (int) ((size + SEGMENT_LENGTH - 1) >>> SEGMENT_SHIFT);
+    buffers = new ByteBuffer[segmentCount];
+    segments = new LongBuffer[segmentCount];
+    int i = 0;
+    try {
+      for (; i < segmentCount; i++) {
+        long length = Math.min(SEGMENT_LENGTH, size - ((long) i << SEGMENT_SHIFT));
+        buffers[i] = ByteBuffer.allocateDirect((int) length * Long.BYTES).order(ByteOrder.nativeOrder());
+        segments[i] = buffers[i].asLongBuffer();
+      }
+    } catch (Throwable e) {
+      // typically running out of direct memory part way, give back the segments already taken
+      for (int j = 0; j < i; j++) {
+        Cleaner.free(buffers[j]);
+      }
+      buffers = null;
+      segments = null;
+      throw e;
+    }
+  }
+
+  /**
+   * Copies the first {@code size} values of the stream, in encounter order.
+   */
+  public static BigLongArray of(LongStream values, long size) {
+    BigLongArray array = new BigLongArray(size);
+    array.fill(values);
+    return array;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public long get(long index) {
+    ensureOpen();
+    return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+  }
+
+  public void set(long index, long value) {
+    ensureOpen();
+    segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+  }
+
+  public void fill(LongStream values) {
+    ensureOpen();
+    PrimitiveIterator.OfLong iterator = values.limit(size).iterator();
+    for (long i = 0; iterator.hasNext(); i++) {
+      set(i, iterator.nextLong());
+    }
+  }
+
+  /**
+   * Parallel fill on the {@link Reducers} pool, every segment is written by one task.
+   */
+  public void setAll(LongUnaryOperator indexToValue) {
+    ensureOpen();
+    Reducers.pool().invoke(new SetAllTask(this, 0, segments.length, indexToValue));
+  }
+
+  LongBuffer segment(int segment) {
+    return segments[segment];
+  }
+
+  void ensureOpen() {
+    if (segments == null) {
+      throw new IllegalStateException("BigLongArray already closed");
+    }
+  }
+
+  public Spliterator.OfLong spliterator() {
+    ensureOpen();
+    return new SegmentSpliterator(this, 0, size);
+  }
+
+  public LongStream stream() {
+    return StreamSupport.longStream(spliterator(), false);
+  }
+
+  /**
+   * Frees the off-heap memory right away, the array can't be used afterwards.
+   */
+  @Override
+  public void close() {
+    if (segments == null) {
+      return;
+    }
+    for (ByteBuffer buffer : buffers) {
+      Cleaner.free(buffer);
+    }
+    buffers = null;
+    segments = null;
+  }
+
+  private static class SetAllTask extends RecursiveAction {
+
+    private final BigLongArray array;
+    private final int fromSegment;
+    private final int toSegment;
+    private final LongUnaryOperator indexToValue;
+
+    SetAllTask(BigLongArray array, int fromSegment, int toSegment, LongUnaryOperator indexToValue) {
+      this.array = array;
+      this.fromSegment = fromSegment;
+      this.toSegment = toSegment;
+      this.indexToValue = indexToValue;
+    }
+
+    @Override
+    protected void compute() {
+      if (toSegment - fromSegment > 1) {
+        int middle = (fromSegment + toSegment) >>> 1;
+        invokeAll(new SetAllTask(array, fromSegment, middle, indexToValue),
+            new SetAllTask(array, middle, toSegment, indexToValue));
+        return;
+      }
+      if (toSegment == fromSegment) {
+        return;
+      }
+      LongBuffer segment = array.segment(fromSegment);
+      long base = (long) fromSegment << SEGMENT_SHIFT;
+      for (int i = 0; i < segment.capacity(); i++) {
+        segment.put(i, indexToValue.applyAsLong(base + i));
+      }
+    }
+
+  }
+
+  private static class SegmentSpliterator implements Spliterator.OfLong {
+
+    private final BigLongArray array;
+    private long index;
+    private final long fence;
+
+    SegmentSpliterator(BigLongArray array, long index, long fence) {
+      this.array = array;
+      this.index = index;
+      this.fence = fence;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+      long middle = (index + fence) >>> 1;
+      if (middle - index < 1024) {
+        return null;
+      }
+      // regions spanning several segments are cut on a segment boundary
+      long boundary = middle & ~SEGMENT_MASK;
+      if (boundary > index) {
+        middle = boundary;
+      } else if (boundary + SEGMENT_LENGTH < fence) {
+        middle = boundary + SEGMENT_LENGTH;
+      }
+      Spliterator.OfLong prefix = new SegmentSpliterator(array, index, middle);
+      index = middle;
+      return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(array.get(index++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      while (index < fence) {
+        LongBuffer segment = array.segment((int) (index >>> SEGMENT_SHIFT));
+        int start = (int) (index & SEGMENT_MASK);
+        int end = (int) Math.min(segment.capacity(), start + (fence - index));
+        for (int i = start; i < end; i++) {
+          action.accept(segment.get(i));
+        }
+        index += end - start;
+      }
+    }
+
+    @Override
+    public long estimateSize() {
+      return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED + SIZED + SUBSIZED + NONNULL;
+    }
+
+  }
+
+  /**
+   * Releases direct buffers through Unsafe.invokeCleaner, there is no public API for it in Java 11.
+   * Falls back to leaving the buffer to the GC when jdk.unsupported isn't there.
+   */
+  private static class Cleaner {
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+      Object unsafe = null;
+      Method invokeCleaner = null;
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafe = field.get(null);
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        unsafe = null;
+        invokeCleaner = null;
+      }
+      UNSAFE = unsafe;
+      INVOKE_CLEANER = invokeCleaner;
+    }
+
+    static void free(ByteBuffer buffer) {
+      if (INVOKE_CLEANER == null) {
+        return;
+      }
+      try {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Could not free direct buffer", e);
+      }
+    }
+
+  }
+
+}
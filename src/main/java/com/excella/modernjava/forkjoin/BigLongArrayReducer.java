@@ -0,0 +1,59 @@
+package com.excella.modernjava.forkjoin;
+
+import java.nio.LongBuffer;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * {@link LongReducer} over a {@link BigLongArray}, leaves walk one segment buffer at a time with an
+ * int index.
+ */
+public class BigLongArrayReducer extends RecursiveReducer<BigLongArrayReducer> {
+
+  private final BigLongArray array;
+  private final long identity;
+  private final LongBinaryOperator op;
+  private long result;
+
+  public BigLongArrayReducer(BigLongArray array, long identity, LongBinaryOperator op, int parallelism) {
+    this(array, 0, array.size(), granularity(array.size(), parallelism), identity, op);
+  }
+
+  private BigLongArrayReducer(BigLongArray array, long from, long to, long granularity, long identity,
+      LongBinaryOperator op) {
+    super(from, to, granularity);
+    this.array = array;
+    this.identity = identity;
+    this.op = op;
+  }
+
+  @Override
+  protected BigLongArrayReducer newTask(long from, long to) {
+    return new BigLongArrayReducer(array, from, to, granularity(), identity, op);
+  }
+
+  @Override
+  protected void computeSequentially() {
+    long acc = identity;
+    long index = from;
+    while (index < to) {
+      LongBuffer segment = array.segment((int) (index >>> BigLongArray.SEGMENT_SHIFT));
+      int start = (int) (index & (BigLongArray.SEGMENT_LENGTH - 1));
+      int end = (int) Math.min(segment.capacity(), start + (to - index));
+      for (int i = start; i < end; i++) {
+        acc = op.applyAsLong(acc, segment.get(i));
+      }
+      index += end - start;
+    }
+    result = acc;
+  }
+
+  @Override
+  protected void combine(BigLongArrayReducer left, BigLongArrayReducer right) {
+    result = op.applyAsLong(left.result, right.result);
+  }
+
+  public long getResult() {
+    return result;
+  }
+
+}
@@ -0,0 +1,56 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Maps every element of a {@code double[]} and folds the results with an associative operator.
+ * Floating point addition is only approximately associative, so parallel sums may differ from a
+ * sequential loop in the last bits.
+ */
+public class DoubleReducer extends RecursiveReducer<DoubleReducer> {
+
+  private final double[] numbers;
+  private final DoubleUnaryOperator mapper;
+  private final double identity;
+  private final DoubleBinaryOperator op;
+  private double result;
+
+  public DoubleReducer(double[] numbers, DoubleUnaryOperator mapper, double identity, DoubleBinaryOperator op,
+      int parallelism) {
+    this(numbers, 0, numbers.length, granularity(numbers.length, parallelism), mapper, identity, op);
+  }
+
+  private DoubleReducer(double[] numbers, long from, long to, long granularity, DoubleUnaryOperator mapper,
+      double identity, DoubleBinaryOperator op) {
+    super(from, to, granularity);
+    this.numbers = numbers;
+    this.mapper = mapper;
+    this.identity = identity;
+    this.op = op;
+  }
+
+  @Override
+  protected DoubleReducer newTask(long from, long to) {
+    return new DoubleReducer(numbers, from, to, granularity(), mapper, identity, op);
+  }
+
+  @Override
+  protected void computeSequentially() {
+    double acc = identity;
+    for (int i = (int) from; i < to; i++) {
+      acc = op.applyAsDouble(acc, mapper.applyAsDouble(numbers[i]));
+    }
+    result = acc;
+  }
+
+  @Override
+  protected void combine(DoubleReducer left, DoubleReducer right) {
+    result = op.applyAsDouble(left.result, right.result);
+  }
+
+  public double getResult() {
+    return result;
+  }
+
+}
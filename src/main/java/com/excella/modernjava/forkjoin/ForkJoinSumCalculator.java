@@ -1,6 +1,6 @@
 package com.excella.modernjava.forkjoin;
 
-import java.util.concurrent.ForkJoinPool;
+import java.nio.file.Path;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.RecursiveTask;
 import java.util.stream.LongStream;
@@ -12,26 +12,48 @@ public class ForkJoinSumCalculator extends RecursiveTask<Long> {
   private final long[] numbers;
   private final int start;
   private final int end;
+  private final long threshold;
+  private final GranularityTuner tuner;
+  private Thread forkedBy;
 
   public ForkJoinSumCalculator(long[] numbers) {
-    this(numbers, 0, numbers.length);
+    this(numbers, 0, numbers.length, THRESHOLD, null);
   }
 
-  private ForkJoinSumCalculator(long[] numbers, int start, int end) {
+  /**
+   * Splits down to the tuner's current leaf size and reports leaf timings and steals back to it.
+   */
+  public ForkJoinSumCalculator(long[] numbers, GranularityTuner tuner) {
+    this(numbers, 0, numbers.length, tuner.leafSize(), tuner);
+  }
+
+  private ForkJoinSumCalculator(long[] numbers, int start, int end, long threshold, GranularityTuner tuner) {
     this.numbers = numbers;
     this.start = start;
     this.end = end;
+    this.threshold = threshold;
+    this.tuner = tuner;
   }
 
   @Override
   protected Long compute() {
+    if (tuner != null && forkedBy != null && forkedBy != Thread.currentThread()) {
+      tuner.recordSteal();
+    }
     int length = end - start;
-    if (length <= THRESHOLD) {
-      return computeSequentially();
+    if (length <= threshold) {
+      if (tuner == null) {
+        return computeSequentially();
+      }
+      long begin = System.nanoTime();
+      long sum = computeSequentially();
+      tuner.recordLeaf(System.nanoTime() - begin);
+      return sum;
     }
-    ForkJoinSumCalculator leftTask = new ForkJoinSumCalculator(numbers, start, start + length / 2);
+    ForkJoinSumCalculator leftTask = new ForkJoinSumCalculator(numbers, start, start + length / 2, threshold, tuner);
+    leftTask.forkedBy = Thread.currentThread();
     leftTask.fork();
-    ForkJoinSumCalculator rightTask = new ForkJoinSumCalculator(numbers, start + length / 2, end);
+    ForkJoinSumCalculator rightTask = new ForkJoinSumCalculator(numbers, start + length / 2, end, threshold, tuner);
     Long rightResult = rightTask.compute();
     Long leftResult = leftTask.join();
     return leftResult + rightResult;
@@ -48,8 +70,37 @@ public class ForkJoinSumCalculator extends RecursiveTask<Long> {
   public static long forkJoinSum(long n) {
     long[] numbers = LongStream.rangeClosed(1, n).toArray();
     ForkJoinTask<Long> task = new ForkJoinSumCalculator(numbers);
-    //return FORK_JOIN_POOL.invoke(task);
-    return new ForkJoinPool().invoke(task);
+    // Shared pool, creating a new ForkJoinPool per call spins up a full set of worker threads every time
+    return Reducers.pool().invoke(task);
+  }
+
+  /**
+   * forkJoinSum with the leaf size learned by {@code tuner}, which is adjusted after the sum; pass
+   * {@code GranularityTuner.forType("ForkJoinSumCalculator", THRESHOLD)} and call its save() to keep
+   * the result across runs.
+   */
+  public static long forkJoinSumTuned(long n, GranularityTuner tuner) {
+    long[] numbers = LongStream.rangeClosed(1, n).toArray();
+    long sum = Reducers.pool().invoke(new ForkJoinSumCalculator(numbers, tuner));
+    tuner.adjust();
+    return sum;
+  }
+
+  /**
+   * Sums a file of little-endian longs without loading it on the heap, see {@link MappedFile}.
+   */
+  public static long forkJoinSum(Path file) {
+    return Reducers.sum(MappedFile.map(file, MappedFile.Element.LONG));
+  }
+
+  /**
+   * Sums 1..n from an off-heap {@link BigLongArray}, n can go past Integer.MAX_VALUE.
+   */
+  public static long forkJoinSumOffHeap(long n) {
+    try (BigLongArray numbers = new BigLongArray(n)) {
+      numbers.setAll(i -> i + 1);
+      return Reducers.sum(numbers);
+    }
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+package com.excella.modernjava.forkjoin;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Learns the leaf size of a fork/join task type from its own timings. Tasks report every leaf they
+ * compute sequentially and every time they run on a thread other than the one that forked them (a
+ * steal). After a job, {@link #adjust()} scales the leaf size so the average leaf lands between
+ * TARGET_MIN_NANOS and TARGET_MAX_NANOS: long enough to amortize the fork/join overhead, short enough
+ * to keep idle workers busy. The steal rate picks the point in that band: many steals per leaf mean
+ * idle workers had to come looking for work and leaves aim for the low end, almost none mean the
+ * work spread out easily and leaves aim for the high end.
+ *
+ * Learned sizes are read once per task type from a properties file, the
+ * {@code modernjava.granularity.file} system property, ~/.modernjava/granularity.properties by default,
+ * and only written back by an explicit {@link #save()}, so a restarted JVM on the same machine can
+ * start from the tuned value without every job touching the disk.
+ */
+public class GranularityTuner {
+
+  static final long TARGET_MIN_NANOS = 50_000;
+  static final long TARGET_MAX_NANOS = 100_000;
+  static final long MIN_LEAF = 1_000;
+  static final long MAX_LEAF = 1L << 26;
+  static final double HIGH_STEAL_RATE = 0.25;
+  static final double LOW_STEAL_RATE = 0.02;
+
+  private static final Path FILE = Paths.get(System.getProperty("modernjava.granularity.file",
+      Paths.get(System.getProperty("user.home"), ".modernjava", "granularity.properties").toString()));
+  private static final Map<String, GranularityTuner> TUNERS = new ConcurrentHashMap<>();
+
+  private final String taskType;
+  private volatile long leafSize;
+  private final LongAdder leaves = new LongAdder();
+  private final LongAdder leafNanos = new LongAdder();
+  private final LongAdder steals = new LongAdder();
+  private long totalSteals;
+
+  private GranularityTuner(String taskType, long leafSize) {
+    this.taskType = taskType;
+    this.leafSize = leafSize;
+  }
+
+  /**
+   * The tuner of a task type, starting from the saved leaf size or {@code defaultLeafSize}.
+   */
+  public static GranularityTuner forType(String taskType, long defaultLeafSize) {
+    return TUNERS.computeIfAbsent(taskType, type -> new GranularityTuner(type, load(type, defaultLeafSize)));
+  }
+
+  public String getTaskType() {
+    return taskType;
+  }
+
+  public long leafSize() {
+    return leafSize;
+  }
+
+  public void recordLeaf(long nanos) {
+    leaves.increment();
+    leafNanos.add(nanos);
+  }
+
+  public void recordSteal() {
+    steals.increment();
+  }
+
+  /**
+   * Steals recorded over the tuner's lifetime.
+   */
+  public synchronized long getSteals() {
+    return totalSteals + steals.sum();
+  }
+
+  /**
+   * Folds the leaves and steals recorded since the last call into a new leaf size.
+   */
+  public synchronized long adjust() {
+    long count = leaves.sumThenReset();
+    long nanos = leafNanos.sumThenReset();
+    long stolen = steals.sumThenReset();
+    totalSteals += stolen;
+    if (count == 0 || nanos == 0) {
+      return leafSize;
+    }
+    double average = (double) nanos / count;
+    double stealRate = (double) stolen / count;
+    double target;
+    if (stealRate >= HIGH_STEAL_RATE) {
+      target = TARGET_MIN_NANOS;
+    } else if (stealRate <= LOW_STEAL_RATE) {
+      target = TARGET_MAX_NANOS;
+    } else if (average >= TARGET_MIN_NANOS && average <= TARGET_MAX_NANOS) {
+      return leafSize;
+    } else {
+      target = (TARGET_MIN_NANOS + TARGET_MAX_NANOS) / 2.0;
+    }
+    // at most 4x per step so one noisy job can't throw it off
+    double factor = Math.max(0.25, Math.min(4, target / average));
+    long tuned = Math.max(MIN_LEAF, Math.min(MAX_LEAF, (long) (leafSize * factor)));
+    leafSize = tuned;
+    return leafSize;
+  }
+
+  /**
+   * Writes the current leaf size to the properties file, for the next JVM to start from.
+   */
+  public void save() {
+    save(taskType, leafSize);
+  }
+
+  private static long load(String taskType, long defaultLeafSize) {
+    Properties saved = read();
+    String value = saved.getProperty(taskType);
+    try {
+      return value == null ? defaultLeafSize : Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      return defaultLeafSize;
+    }
+  }
+
+  private static synchronized void save(String taskType, long leafSize) {
+    Properties saved = read();
+    saved.setProperty(taskType, Long.toString(leafSize));
+    try {
+      Files.createDirectories(FILE.toAbsolutePath().getParent());
+      try (Writer writer = Files.newBufferedWriter(FILE)) {
+        saved.store(writer, "Fork/join leaf sizes learned by GranularityTuner");
+      }
+    } catch (IOException e) {
+      // not being able to persist only costs a re-tune on the next start, never fail the job for it
+      System.err.println("Could not save fork/join granularity to " + FILE + ": " + e.getMessage());
+    }
+  }
+
+  private static Properties read() {
+    Properties saved = new Properties();
+    if (Files.isReadable(FILE)) {
+      try (Reader reader = Files.newBufferedReader(FILE)) {
+        saved.load(reader);
+      } catch (IOException e) {
+        System.err.println("Could not read fork/join granularity from " + FILE + ": " + e.getMessage());
+      }
+    }
+    return saved;
+  }
+
+}
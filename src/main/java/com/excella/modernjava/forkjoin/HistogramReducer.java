@@ -0,0 +1,51 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Counts elements per bucket. {@code bucketAt} maps an index of the source to a bucket in
+ * [0, buckets), which lets one task serve int[], long[] and double[] sources alike. Every leaf
+ * fills its own counts and the combine step adds them up, so no counter is shared between workers.
+ */
+public class HistogramReducer extends RecursiveReducer<HistogramReducer> {
+
+  private final IntUnaryOperator bucketAt;
+  private final int buckets;
+  private long[] counts;
+
+  public HistogramReducer(int length, IntUnaryOperator bucketAt, int buckets, int parallelism) {
+    this(0, length, granularity(length, parallelism), bucketAt, buckets);
+  }
+
+  private HistogramReducer(long from, long to, long granularity, IntUnaryOperator bucketAt, int buckets) {
+    super(from, to, granularity);
+    this.bucketAt = bucketAt;
+    this.buckets = buckets;
+  }
+
+  @Override
+  protected HistogramReducer newTask(long from, long to) {
+    return new HistogramReducer(from, to, granularity(), bucketAt, buckets);
+  }
+
+  @Override
+  protected void computeSequentially() {
+    counts = new long[buckets];
+    for (int i = (int) from; i < to; i++) {
+      counts[bucketAt.applyAsInt(i)]++;
+    }
+  }
+
+  @Override
+  protected void combine(HistogramReducer left, HistogramReducer right) {
+    counts = left.counts;
+    for (int i = 0; i < buckets; i++) {
+      counts[i] += right.counts[i];
+    }
+  }
+
+  public long[] getCounts() {
+    return counts;
+  }
+
+}
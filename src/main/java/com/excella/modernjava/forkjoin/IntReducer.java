@@ -0,0 +1,55 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Maps every element of an {@code int[]} to a long and folds the results with an associative
+ * operator, so sums of ints can't overflow.
+ */
+public class IntReducer extends RecursiveReducer<IntReducer> {
+
+  private final int[] numbers;
+  private final IntToLongFunction mapper;
+  private final long identity;
+  private final LongBinaryOperator op;
+  private long result;
+
+  public IntReducer(int[] numbers, IntToLongFunction mapper, long identity, LongBinaryOperator op,
+      int parallelism) {
+    this(numbers, 0, numbers.length, granularity(numbers.length, parallelism), mapper, identity, op);
+  }
+
+  private IntReducer(int[] numbers, long from, long to, long granularity, IntToLongFunction mapper,
+      long identity, LongBinaryOperator op) {
+    super(from, to, granularity);
+    this.numbers = numbers;
+    this.mapper = mapper;
+    this.identity = identity;
+    this.op = op;
+  }
+
+  @Override
+  protected IntReducer newTask(long from, long to) {
+    return new IntReducer(numbers, from, to, granularity(), mapper, identity, op);
+  }
+
+  @Override
+  protected void computeSequentially() {
+    long acc = identity;
+    for (int i = (int) from; i < to; i++) {
+      acc = op.applyAsLong(acc, mapper.applyAsLong(numbers[i]));
+    }
+    result = acc;
+  }
+
+  @Override
+  protected void combine(IntReducer left, IntReducer right) {
+    result = op.applyAsLong(left.result, right.result);
+  }
+
+  public long getResult() {
+    return result;
+  }
+
+}
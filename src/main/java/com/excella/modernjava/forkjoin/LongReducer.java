@@ -0,0 +1,54 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Maps every element of a {@code long[]} and folds the results with an associative operator.
+ */
+public class LongReducer extends RecursiveReducer<LongReducer> {
+
+  private final long[] numbers;
+  private final LongUnaryOperator mapper;
+  private final long identity;
+  private final LongBinaryOperator op;
+  private long result;
+
+  public LongReducer(long[] numbers, LongUnaryOperator mapper, long identity, LongBinaryOperator op,
+      int parallelism) {
+    this(numbers, 0, numbers.length, granularity(numbers.length, parallelism), mapper, identity, op);
+  }
+
+  private LongReducer(long[] numbers, long from, long to, long granularity, LongUnaryOperator mapper,
+      long identity, LongBinaryOperator op) {
+    super(from, to, granularity);
+    this.numbers = numbers;
+    this.mapper = mapper;
+    this.identity = identity;
+    this.op = op;
+  }
+
+  @Override
+  protected LongReducer newTask(long from, long to) {
+    return new LongReducer(numbers, from, to, granularity(), mapper, identity, op);
+  }
+
+  @Override
+  protected void computeSequentially() {
+    long acc = identity;
+    for (int i = (int) from; i < to; i++) {
+      acc = op.applyAsLong(acc, mapper.applyAsLong(numbers[i]));
+    }
+    result = acc;
+  }
+
+  @Override
+  protected void combine(LongReducer left, LongReducer right) {
+    result = op.applyAsLong(left.result, right.result);
+  }
+
+  public long getResult() {
+    return result;
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * {@link DoubleReducer} over a {@link MappedFile} of doubles.
+ */
+public class MappedDoubleReducer extends RecursiveReducer<MappedDoubleReducer> {
+
+  private final MappedFile file;
+  private final double identity;
+  private final DoubleBinaryOperator op;
+  private double result;
+
+  public MappedDoubleReducer(MappedFile file, double identity, DoubleBinaryOperator op, int parallelism) {
+    this(file, 0, file.size(), granularity(file.size(), parallelism), identity, op);
+  }
+
+  private MappedDoubleReducer(MappedFile file, long from, long to, long granularity, double identity,
+      DoubleBinaryOperator op) {
+    super(from, to, granularity);
+    this.file = file;
+    this.identity = identity;
+    this.op = op;
+  }
+
+  @Override
+  protected MappedDoubleReducer newTask(long from, long to) {
+    return new MappedDoubleReducer(file, from, to, granularity(), identity, op);
+  }
+
+  @Override
+  protected void computeSequentially() {
+    double acc = identity;
+    for (long i = from; i < to; i++) {
+      acc = op.applyAsDouble(acc, file.getDouble(i));
+    }
+    result = acc;
+  }
+
+  @Override
+  protected void combine(MappedDoubleReducer left, MappedDoubleReducer right) {
+    result = op.applyAsDouble(left.result, right.result);
+  }
+
+  public double getResult() {
+    return result;
+  }
+
+}
@@ -0,0 +1,280 @@
+package com.excella.modernjava.forkjoin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A file of little-endian ints, longs or doubles mapped into memory, so reductions read straight from
+ * the page cache instead of materializing an array on the heap.
+ *
+ * A single mapping is limited to 2 GB, so the file is mapped in chunks of CHUNK_ELEMENTS elements.
+ * Elements are addressed with long indexes and the spliterators split on element ranges, which
+ * hands every worker its own region of the file.
+ *
+ * The mappings are released when this object is garbage collected, there is nothing to close.
+ */
+public class MappedFile {
+
+  public enum Element {
+    INT(Integer.BYTES), LONG(Long.BYTES), DOUBLE(Double.BYTES);
+
+    private final int bytes;
+
+    Element(int bytes) {
+      this.bytes = bytes;
+    }
+
+    public int bytes() {
+      return bytes;
+    }
+  }
+
+  static final int CHUNK_SHIFT = 27;
+  static final long CHUNK_ELEMENTS = 1L << CHUNK_SHIFT;
+  private static final long CHUNK_MASK = CHUNK_ELEMENTS - 1;
+
+  private final Element element;
+  private final long size;
+  private final ByteBuffer[] chunks;
+  private final int elementShift;
+
+  private MappedFile(Element element, long size, ByteBuffer[] chunks) {
+    this.element = element;
+    this.size = size;
+    this.chunks = chunks;
+    this.elementShift = Integer.numberOfTrailingZeros(element.bytes);
+  }
+
+  public static MappedFile map(Path path, Element element) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return map(channel, FileChannel.MapMode.READ_ONLY, element, channel.size() / element.bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Creates (or truncates) a file of {@code size} elements and maps it read-write, e.g. to fill it
+   * with {@link #putLong(long, long)} before reducing it.
+   */
+  public static MappedFile create(Path path, Element element, long size) {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      return map(channel, FileChannel.MapMode.READ_WRITE, element, size);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static MappedFile map(FileChannel channel, FileChannel.MapMode mode, Element element, long size)
+      throws IOException {
+    int chunkCount = (int) ((size + CHUNK_ELEMENTS - 1) >>> CHUNK_SHIFT);
+    ByteBuffer[] chunks = new ByteBuffer[chunkCount];
+    for (int i = 0; i < chunkCount; i++) {
+      long first = (long) i << CHUNK_SHIFT;
+      long elements = Math.min(CHUNK_ELEMENTS, size - first);
+      MappedByteBuffer chunk = channel.map(mode, first * element.bytes, elements * element.bytes);
+      chunks[i] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    return new MappedFile(element, size, chunks);
+  }
+
+  public Element getElement() {
+    return element;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public long getLong(long index) {
+    return element == Element.INT ? getInt(index) : chunk(index).getLong(offset(index));
+  }
+
+  public int getInt(long index) {
+    return chunk(index).getInt(offset(index));
+  }
+
+  public double getDouble(long index) {
+    return chunk(index).getDouble(offset(index));
+  }
+
+  public void putLong(long index, long value) {
+    if (element == Element.INT) {
+      chunk(index).putInt(offset(index), (int) value);
+    } else {
+      chunk(index).putLong(offset(index), value);
+    }
+  }
+
+  public void putDouble(long index, double value) {
+    chunk(index).putDouble(offset(index), value);
+  }
+
+  private ByteBuffer chunk(long index) {
+    return chunks[(int) (index >>> CHUNK_SHIFT)];
+  }
+
+  private int offset(long index) {
+    return (int) (index & CHUNK_MASK) << elementShift;
+  }
+
+  /** Ints and longs widened to long. */
+  public LongStream longs() {
+    return StreamSupport.longStream(new LongSpliterator(this, 0, size), false);
+  }
+
+  public IntStream ints() {
+    return StreamSupport.intStream(new IntSpliterator(this, 0, size), false);
+  }
+
+  public DoubleStream doubles() {
+    return StreamSupport.doubleStream(new DoubleSpliterator(this, 0, size), false);
+  }
+
+  private abstract static class RegionSpliterator<S extends Spliterator<?>> {
+
+    protected final MappedFile file;
+    protected long index;
+    protected final long fence;
+
+    RegionSpliterator(MappedFile file, long index, long fence) {
+      this.file = file;
+      this.index = index;
+      this.fence = fence;
+    }
+
+    public S trySplit() {
+      long middle = (index + fence) >>> 1;
+      if (middle - index < 1024) {
+        return null;
+      }
+      // prefer a chunk boundary when the region spans several chunks
+      long boundary = middle & ~CHUNK_MASK;
+      if (boundary > index) {
+        middle = boundary;
+      }
+      S prefix = newSpliterator(index, middle);
+      index = middle;
+      return prefix;
+    }
+
+    protected abstract S newSpliterator(long index, long fence);
+
+    public long estimateSize() {
+      return fence - index;
+    }
+
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL
+          | Spliterator.IMMUTABLE;
+    }
+
+  }
+
+  private static class LongSpliterator extends RegionSpliterator<Spliterator.OfLong> implements Spliterator.OfLong {
+
+    LongSpliterator(MappedFile file, long index, long fence) {
+      super(file, index, fence);
+    }
+
+    @Override
+    protected Spliterator.OfLong newSpliterator(long index, long fence) {
+      return new LongSpliterator(file, index, fence);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(file.getLong(index++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      for (long i = index; i < fence; i++) {
+        action.accept(file.getLong(i));
+      }
+      index = fence;
+    }
+
+  }
+
+  private static class IntSpliterator extends RegionSpliterator<Spliterator.OfInt> implements Spliterator.OfInt {
+
+    IntSpliterator(MappedFile file, long index, long fence) {
+      super(file, index, fence);
+    }
+
+    @Override
+    protected Spliterator.OfInt newSpliterator(long index, long fence) {
+      return new IntSpliterator(file, index, fence);
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(file.getInt(index++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+      for (long i = index; i < fence; i++) {
+        action.accept(file.getInt(i));
+      }
+      index = fence;
+    }
+
+  }
+
+  private static class DoubleSpliterator extends RegionSpliterator<Spliterator.OfDouble>
+      implements Spliterator.OfDouble {
+
+    DoubleSpliterator(MappedFile file, long index, long fence) {
+      super(file, index, fence);
+    }
+
+    @Override
+    protected Spliterator.OfDouble newSpliterator(long index, long fence) {
+      return new DoubleSpliterator(file, index, fence);
+    }
+
+    @Override
+    public boolean tryAdvance(DoubleConsumer action) {
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(file.getDouble(index++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(DoubleConsumer action) {
+      for (long i = index; i < fence; i++) {
+        action.accept(file.getDouble(i));
+      }
+      index = fence;
+    }
+
+  }
+
+}
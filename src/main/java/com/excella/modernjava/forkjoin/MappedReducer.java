@@ -0,0 +1,51 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.function.LongBinaryOperator;
+
+/**
+ * {@link LongReducer} over a {@link MappedFile} of ints or longs: every leaf reads its own region of
+ * the file, nothing is copied to the heap.
+ */
+public class MappedReducer extends RecursiveReducer<MappedReducer> {
+
+  private final MappedFile file;
+  private final long identity;
+  private final LongBinaryOperator op;
+  private long result;
+
+  public MappedReducer(MappedFile file, long identity, LongBinaryOperator op, int parallelism) {
+    this(file, 0, file.size(), granularity(file.size(), parallelism), identity, op);
+  }
+
+  private MappedReducer(MappedFile file, long from, long to, long granularity, long identity,
+      LongBinaryOperator op) {
+    super(from, to, granularity);
+    this.file = file;
+    this.identity = identity;
+    this.op = op;
+  }
+
+  @Override
+  protected MappedReducer newTask(long from, long to) {
+    return new MappedReducer(file, from, to, granularity(), identity, op);
+  }
+
+  @Override
+  protected void computeSequentially() {
+    long acc = identity;
+    for (long i = from; i < to; i++) {
+      acc = op.applyAsLong(acc, file.getLong(i));
+    }
+    result = acc;
+  }
+
+  @Override
+  protected void combine(MappedReducer left, MappedReducer right) {
+    result = op.applyAsLong(left.result, right.result);
+  }
+
+  public long getResult() {
+    return result;
+  }
+
+}
@@ -0,0 +1,238 @@
+package com.excella.modernjava.forkjoin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Word count over a memory-mapped UTF-8/ASCII file, the file counterpart of
+ * {@link WordCount#countWords(String)}.
+ *
+ * The file is cut into regions whose boundaries are moved forward onto a whitespace byte, the same
+ * trick WordCounterSpliterator uses, so no word straddles two regions: every region starts in the
+ * "last char was a space" state and combining is a plain sum. Each region is mapped, in windows of
+ * at most MAX_MAPPING bytes, and scanned 8 bytes at a time (SWAR) without allocating anything per
+ * byte.
+ *
+ * Whitespace is Character.isWhitespace restricted to ASCII (tab, line feed, VT, form feed, CR,
+ * 0x1C-0x1F and space); bytes of multi-byte UTF-8 sequences are all >= 0x80 and always count as
+ * word characters.
+ */
+public class MappedWordCount {
+
+  static final long MIN_REGION = 1 << 20;
+  static final long MAX_REGION = 1 << 30;
+  /** Largest window mapped at once, a MappedByteBuffer can't exceed Integer.MAX_VALUE bytes. */
+  static final long MAX_MAPPING = 1 << 30;
+  private static final int REGIONS_PER_WORKER = 4;
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+  private static final long HIGH = 0x8080808080808080L;
+
+  private MappedWordCount() {
+  }
+
+  public static long countWords(Path file) {
+    return countWords(file, Reducers.pool());
+  }
+
+  public static long countWords(Path file, ForkJoinPool pool) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] bounds = regions(channel, pool.getParallelism());
+      RegionTask task = new RegionTask(channel, bounds, 0, bounds.length - 1);
+      pool.invoke(task);
+      return task.words;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static long countWordsSequentially(Path file) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] bounds = regions(channel, 1);
+      long words = 0;
+      for (int i = 0; i < bounds.length - 1; i++) {
+        words += countRegion(channel, bounds[i], bounds[i + 1]);
+      }
+      return words;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Whitespace aligned region boundaries of the file for {@code parts} workers, so regions can be
+   * counted separately (even in other processes) with {@link #countWords(Path, long, long)}.
+   */
+  public static long[] regions(Path file, int parts) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return regions(channel, parts);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Words in [start, end) of the file, start must be 0 or a region boundary.
+   */
+  public static long countWords(Path file, long start, long end) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return countRegion(channel, start, end);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Region boundaries, first is 0 and last is the file size, every other one points at whitespace.
+   */
+  static long[] regions(FileChannel channel, int parallelism) throws IOException {
+    long size = channel.size();
+    long target = Math.min(MAX_REGION, Math.max(MIN_REGION, size / (Math.max(1, parallelism) * REGIONS_PER_WORKER)));
+    int count = (int) Math.max(1, (size + target - 1) / target);
+    long[] bounds = new long[count + 1];
+    int n = 1;
+    ByteBuffer probe = ByteBuffer.allocate(4096);
+    for (int i = 1; i < count; i++) {
+      long boundary = nextWhitespace(channel, Math.max(i * target, bounds[n - 1]), probe);
+      // a word longer than the region swallowed this boundary
+      if (boundary > bounds[n - 1] && boundary < size) {
+        bounds[n++] = boundary;
+      }
+    }
+    bounds[n++] = size;
+    long[] result = new long[n];
+    System.arraycopy(bounds, 0, result, 0, n);
+    return result;
+  }
+
+  private static long nextWhitespace(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+    while (true) {
+      probe.clear();
+      int read = channel.read(probe, position);
+      if (read <= 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < read; i++) {
+        if (isWhitespace(probe.get(i))) {
+          return position + i;
+        }
+      }
+      position += read;
+    }
+  }
+
+  static long countRegion(FileChannel channel, long start, long end) throws IOException {
+    if (end <= start) {
+      return 0;
+    }
+    long words = 0;
+    boolean lastSpace = true;
+    // a region without whitespace can outgrow one mapping, so it's mapped in windows and a word
+    // running across a window edge is counted once, in the window it starts in
+    for (long position = start; position < end; position += MAX_MAPPING) {
+      long length = Math.min(MAX_MAPPING, end - position);
+      ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+      words += count(window, lastSpace);
+      lastSpace = isWhitespace(window.get(window.limit() - 1));
+    }
+    return words;
+  }
+
+  /**
+   * Words in the buffer, assuming the byte before it was whitespace.
+   */
+  static long count(ByteBuffer bytes) {
+    return count(bytes, true);
+  }
+
+  /**
+   * Words starting in the buffer, given whether the byte before it was whitespace.
+   */
+  static long count(ByteBuffer bytes, boolean afterWhitespace) {
+    int limit = bytes.limit();
+    long words = 0;
+    // high bit of byte 0 of the next word set when the previous byte was whitespace
+    long carry = afterWhitespace ? 0x80 : 0;
+    int i = 0;
+    for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+      long whitespace = whitespaceMask(bytes.getLong(i));
+      long previousWhitespace = (whitespace << 8) | carry;
+      words += Long.bitCount(~whitespace & previousWhitespace & HIGH);
+      carry = whitespace >>> 56;
+    }
+    boolean lastSpace = carry != 0;
+    for (; i < limit; i++) {
+      boolean space = isWhitespace(bytes.get(i));
+      if (!space && lastSpace) {
+        words++;
+      }
+      lastSpace = space;
+    }
+    return words;
+  }
+
+  /**
+   * Sets the high bit of every byte of {@code word} that is ASCII whitespace, 9-13 or 28-32.
+   */
+  static long whitespaceMask(long word) {
+    return (between(word, 8, 14) | between(word, 27, 33));
+  }
+
+  /**
+   * High bit set for the bytes b with m < b < n, exact for 0 <= m <= 127 and 0 <= n <= 128: the low
+   * seven bits never carry or borrow into the next byte, and ~word discards bytes >= 0x80.
+   */
+  private static long between(long word, int m, int n) {
+    long low = word & LOW7;
+    return (ONES * (127 + n) - low) & (low + ONES * (127 - m)) & ~word & HIGH;
+  }
+
+  static boolean isWhitespace(byte b) {
+    return (b >= 9 && b <= 13) || (b >= 28 && b <= 32);
+  }
+
+  private static class RegionTask extends RecursiveAction {
+
+    private final FileChannel channel;
+    private final long[] bounds;
+    private final int from;
+    private final int to;
+    private long words;
+
+    RegionTask(FileChannel channel, long[] bounds, int from, int to) {
+      this.channel = channel;
+      this.bounds = bounds;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= 1) {
+        try {
+          words = from < to ? countRegion(channel, bounds[from], bounds[to]) : 0;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      RegionTask leftTask = new RegionTask(channel, bounds, from, middle);
+      leftTask.fork();
+      RegionTask rightTask = new RegionTask(channel, bounds, middle, to);
+      rightTask.compute();
+      leftTask.join();
+      words = leftTask.words + rightTask.words;
+    }
+
+  }
+
+}
@@ -0,0 +1,244 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Parallel inclusive prefix scan (running totals) with any associative operator, on the
+ * {@link Reducers} pool.
+ *
+ * Two passes over a tree of blocks: the up-sweep reduces every leaf block and stores the partial
+ * result of each subtree, the down-sweep walks the same tree handing every subtree the combined
+ * value of everything to its left and lets the leaves write their running values. The source is read
+ * before the same index is written, so {@code target} may be {@code source} for an in-place scan.
+ */
+public final class PrefixScan {
+
+  private PrefixScan() {
+  }
+
+  public static void scan(long[] array, LongBinaryOperator op) {
+    scan(array, array, op);
+  }
+
+  public static void scan(long[] source, long[] target, LongBinaryOperator op) {
+    checkLength(source.length, target.length);
+    ForkJoinPool pool = Reducers.pool();
+    int leaf = (int) RecursiveReducer.granularity(source.length, pool.getParallelism());
+    LongUpSweep upSweep = new LongUpSweep(source, 0, source.length, leaf, op);
+    pool.invoke(upSweep);
+    pool.invoke(new LongDownSweep(upSweep.node, source, target, op, false, 0L));
+  }
+
+  public static void scan(double[] array, DoubleBinaryOperator op) {
+    scan(array, array, op);
+  }
+
+  public static void scan(double[] source, double[] target, DoubleBinaryOperator op) {
+    checkLength(source.length, target.length);
+    ForkJoinPool pool = Reducers.pool();
+    int leaf = (int) RecursiveReducer.granularity(source.length, pool.getParallelism());
+    DoubleUpSweep upSweep = new DoubleUpSweep(source, 0, source.length, leaf, op);
+    pool.invoke(upSweep);
+    pool.invoke(new DoubleDownSweep(upSweep.node, source, target, op, false, 0.0));
+  }
+
+  private static void checkLength(int source, int target) {
+    if (target < source) {
+      throw new IllegalArgumentException("Target holds " + target + " elements, source has " + source);
+    }
+  }
+
+  private static class LongNode {
+
+    private final int from;
+    private final int to;
+    private LongNode left;
+    private LongNode right;
+    private long total;
+
+    LongNode(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+  }
+
+  private static class LongUpSweep extends RecursiveAction {
+
+    private final long[] source;
+    private final int leaf;
+    private final LongBinaryOperator op;
+    private final LongNode node;
+
+    LongUpSweep(long[] source, int from, int to, int leaf, LongBinaryOperator op) {
+      this.source = source;
+      this.leaf = leaf;
+      this.op = op;
+      this.node = new LongNode(from, to);
+    }
+
+    @Override
+    protected void compute() {
+      int from = node.from;
+      int to = node.to;
+      if (to - from <= leaf) {
+        long total = to > from ? source[from] : 0L;
+        for (int i = from + 1; i < to; i++) {
+          total = op.applyAsLong(total, source[i]);
+        }
+        node.total = total;
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      LongUpSweep leftTask = new LongUpSweep(source, from, middle, leaf, op);
+      leftTask.fork();
+      LongUpSweep rightTask = new LongUpSweep(source, middle, to, leaf, op);
+      rightTask.compute();
+      leftTask.join();
+      node.left = leftTask.node;
+      node.right = rightTask.node;
+      node.total = op.applyAsLong(node.left.total, node.right.total);
+    }
+
+  }
+
+  private static class LongDownSweep extends RecursiveAction {
+
+    private final LongNode node;
+    private final long[] source;
+    private final long[] target;
+    private final LongBinaryOperator op;
+    private final boolean hasPrefix;
+    private final long prefix;
+
+    LongDownSweep(LongNode node, long[] source, long[] target, LongBinaryOperator op, boolean hasPrefix,
+        long prefix) {
+      this.node = node;
+      this.source = source;
+      this.target = target;
+      this.op = op;
+      this.hasPrefix = hasPrefix;
+      this.prefix = prefix;
+    }
+
+    @Override
+    protected void compute() {
+      if (node.left == null) {
+        int from = node.from;
+        if (from >= node.to) {
+          return;
+        }
+        long running = hasPrefix ? op.applyAsLong(prefix, source[from]) : source[from];
+        target[from] = running;
+        for (int i = from + 1; i < node.to; i++) {
+          running = op.applyAsLong(running, source[i]);
+          target[i] = running;
+        }
+        return;
+      }
+      long rightPrefix = hasPrefix ? op.applyAsLong(prefix, node.left.total) : node.left.total;
+      invokeAll(new LongDownSweep(node.left, source, target, op, hasPrefix, prefix),
+          new LongDownSweep(node.right, source, target, op, true, rightPrefix));
+    }
+
+  }
+
+  private static class DoubleNode {
+
+    private final int from;
+    private final int to;
+    private DoubleNode left;
+    private DoubleNode right;
+    private double total;
+
+    DoubleNode(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+  }
+
+  private static class DoubleUpSweep extends RecursiveAction {
+
+    private final double[] source;
+    private final int leaf;
+    private final DoubleBinaryOperator op;
+    private final DoubleNode node;
+
+    DoubleUpSweep(double[] source, int from, int to, int leaf, DoubleBinaryOperator op) {
+      this.source = source;
+      this.leaf = leaf;
+      this.op = op;
+      this.node = new DoubleNode(from, to);
+    }
+
+    @Override
+    protected void compute() {
+      int from = node.from;
+      int to = node.to;
+      if (to - from <= leaf) {
+        double total = to > from ? source[from] : 0.0;
+        for (int i = from + 1; i < to; i++) {
+          total = op.applyAsDouble(total, source[i]);
+        }
+        node.total = total;
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      DoubleUpSweep leftTask = new DoubleUpSweep(source, from, middle, leaf, op);
+      leftTask.fork();
+      DoubleUpSweep rightTask = new DoubleUpSweep(source, middle, to, leaf, op);
+      rightTask.compute();
+      leftTask.join();
+      node.left = leftTask.node;
+      node.right = rightTask.node;
+      node.total = op.applyAsDouble(node.left.total, node.right.total);
+    }
+
+  }
+
+  private static class DoubleDownSweep extends RecursiveAction {
+
+    private final DoubleNode node;
+    private final double[] source;
+    private final double[] target;
+    private final DoubleBinaryOperator op;
+    private final boolean hasPrefix;
+    private final double prefix;
+
+    DoubleDownSweep(DoubleNode node, double[] source, double[] target, DoubleBinaryOperator op, boolean hasPrefix,
+        double prefix) {
+      this.node = node;
+      this.source = source;
+      this.target = target;
+      this.op = op;
+      this.hasPrefix = hasPrefix;
+      this.prefix = prefix;
+    }
+
+    @Override
+    protected void compute() {
+      if (node.left == null) {
+        int from = node.from;
+        if (from >= node.to) {
+          return;
+        }
+        double running = hasPrefix ? op.applyAsDouble(prefix, source[from]) : source[from];
+        target[from] = running;
+        for (int i = from + 1; i < node.to; i++) {
+          running = op.applyAsDouble(running, source[i]);
+          target[i] = running;
+        }
+        return;
+      }
+      double rightPrefix = hasPrefix ? op.applyAsDouble(prefix, node.left.total) : node.left.total;
+      invokeAll(new DoubleDownSweep(node.left, source, target, op, hasPrefix, prefix),
+          new DoubleDownSweep(node.right, source, target, op, true, rightPrefix));
+    }
+
+  }
+
+}
@@ -0,0 +1,61 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Base of the primitive fork/join reducers. Like {@link ForkJoinSumCalculator} it halves [from, to)
+ * and reduces the leaves sequentially, but partial results are kept in primitive fields of the
+ * subclasses so nothing is boxed on the way up. Indexes are longs so sources bigger than an array
+ * (mapped files) can use it too.
+ *
+ * There is no fixed THRESHOLD: the root picks a leaf size from the pool parallelism (a few leaves per
+ * worker), and below that size a task only keeps splitting while the other workers are running out
+ * of work to steal, according to {@link #getSurplusQueuedTaskCount()}.
+ */
+public abstract class RecursiveReducer<T extends RecursiveReducer<T>> extends RecursiveAction {
+
+  static final int MIN_LEAF = 1 << 10;
+  static final int LEAVES_PER_WORKER = 4;
+  static final int SURPLUS_LIMIT = 3;
+
+  protected final long from;
+  protected final long to;
+  private final long granularity;
+
+  protected RecursiveReducer(long from, long to, long granularity) {
+    this.from = from;
+    this.to = to;
+    this.granularity = granularity;
+  }
+
+  public static long granularity(long length, int parallelism) {
+    return Math.max(MIN_LEAF, length / (Math.max(1, parallelism) * LEAVES_PER_WORKER));
+  }
+
+  protected long granularity() {
+    return granularity;
+  }
+
+  @Override
+  protected final void compute() {
+    long length = to - from;
+    if (length <= MIN_LEAF || (length <= granularity && getSurplusQueuedTaskCount() > SURPLUS_LIMIT)) {
+      computeSequentially();
+      return;
+    }
+    long middle = from + length / 2;
+    T leftTask = newTask(from, middle);
+    leftTask.fork();
+    T rightTask = newTask(middle, to);
+    rightTask.compute();
+    leftTask.join();
+    combine(leftTask, rightTask);
+  }
+
+  protected abstract T newTask(long from, long to);
+
+  protected abstract void computeSequentially();
+
+  protected abstract void combine(T left, T right);
+
+}
@@ -0,0 +1,193 @@
+package com.excella.modernjava.forkjoin;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Entry points of the {@link RecursiveReducer} family. Every reduction runs on one shared pool, sized
+ * by the {@code modernjava.forkjoin.parallelism} system property (all cores by default) and
+ * replaceable through {@link #setPool(ForkJoinPool)}, instead of creating a pool per call.
+ *
+ * min/max return the identity (MAX_VALUE/MIN_VALUE, +/-Infinity) for empty arrays.
+ */
+public final class Reducers {
+
+  private static volatile ForkJoinPool pool = new ForkJoinPool(
+      Integer.getInteger("modernjava.forkjoin.parallelism", Runtime.getRuntime().availableProcessors()));
+
+  private Reducers() {
+  }
+
+  public static ForkJoinPool pool() {
+    return pool;
+  }
+
+  public static void setPool(ForkJoinPool newPool) {
+    pool = newPool;
+  }
+
+  // long[]
+
+  public static long reduce(long[] numbers, long identity, LongBinaryOperator op) {
+    return mapReduce(numbers, LongUnaryOperator.identity(), identity, op);
+  }
+
+  public static long mapReduce(long[] numbers, LongUnaryOperator mapper, long identity, LongBinaryOperator op) {
+    ForkJoinPool p = pool;
+    LongReducer task = new LongReducer(numbers, mapper, identity, op, p.getParallelism());
+    p.invoke(task);
+    return task.getResult();
+  }
+
+  public static long sum(long[] numbers) {
+    return reduce(numbers, 0L, Long::sum);
+  }
+
+  public static long min(long[] numbers) {
+    return reduce(numbers, Long.MAX_VALUE, Math::min);
+  }
+
+  public static long max(long[] numbers) {
+    return reduce(numbers, Long.MIN_VALUE, Math::max);
+  }
+
+  public static long countIf(long[] numbers, LongPredicate predicate) {
+    return mapReduce(numbers, n -> predicate.test(n) ? 1L : 0L, 0L, Long::sum);
+  }
+
+  public static long[] histogram(long[] numbers, int buckets, LongToIntFunction bucketOf) {
+    return histogram(numbers.length, i -> bucketOf.applyAsInt(numbers[i]), buckets);
+  }
+
+  // int[]
+
+  public static int reduce(int[] numbers, int identity, IntBinaryOperator op) {
+    return (int) mapReduce(numbers, n -> n, identity, (a, b) -> op.applyAsInt((int) a, (int) b));
+  }
+
+  public static long mapReduce(int[] numbers, IntToLongFunction mapper, long identity, LongBinaryOperator op) {
+    ForkJoinPool p = pool;
+    IntReducer task = new IntReducer(numbers, mapper, identity, op, p.getParallelism());
+    p.invoke(task);
+    return task.getResult();
+  }
+
+  public static long sum(int[] numbers) {
+    return mapReduce(numbers, n -> n, 0L, Long::sum);
+  }
+
+  public static int min(int[] numbers) {
+    return reduce(numbers, Integer.MAX_VALUE, Math::min);
+  }
+
+  public static int max(int[] numbers) {
+    return reduce(numbers, Integer.MIN_VALUE, Math::max);
+  }
+
+  public static long countIf(int[] numbers, IntPredicate predicate) {
+    return mapReduce(numbers, n -> predicate.test(n) ? 1L : 0L, 0L, Long::sum);
+  }
+
+  public static long[] histogram(int[] numbers, int buckets, IntUnaryOperator bucketOf) {
+    return histogram(numbers.length, i -> bucketOf.applyAsInt(numbers[i]), buckets);
+  }
+
+  // double[]
+
+  public static double reduce(double[] numbers, double identity, DoubleBinaryOperator op) {
+    return mapReduce(numbers, DoubleUnaryOperator.identity(), identity, op);
+  }
+
+  public static double mapReduce(double[] numbers, DoubleUnaryOperator mapper, double identity,
+      DoubleBinaryOperator op) {
+    ForkJoinPool p = pool;
+    DoubleReducer task = new DoubleReducer(numbers, mapper, identity, op, p.getParallelism());
+    p.invoke(task);
+    return task.getResult();
+  }
+
+  public static double sum(double[] numbers) {
+    return reduce(numbers, 0.0, Double::sum);
+  }
+
+  public static double min(double[] numbers) {
+    return reduce(numbers, Double.POSITIVE_INFINITY, Math::min);
+  }
+
+  public static double max(double[] numbers) {
+    return reduce(numbers, Double.NEGATIVE_INFINITY, Math::max);
+  }
+
+  public static long countIf(double[] numbers, DoublePredicate predicate) {
+    return histogram(numbers.length, i -> predicate.test(numbers[i]) ? 1 : 0, 2)[1];
+  }
+
+  public static long[] histogram(double[] numbers, int buckets, DoubleToIntFunction bucketOf) {
+    return histogram(numbers.length, i -> bucketOf.applyAsInt(numbers[i]), buckets);
+  }
+
+  // off-heap BigLongArray
+
+  public static long reduce(BigLongArray array, long identity, LongBinaryOperator op) {
+    array.ensureOpen();
+    ForkJoinPool p = pool;
+    BigLongArrayReducer task = new BigLongArrayReducer(array, identity, op, p.getParallelism());
+    p.invoke(task);
+    return task.getResult();
+  }
+
+  public static long sum(BigLongArray array) {
+    return reduce(array, 0L, Long::sum);
+  }
+
+  public static long min(BigLongArray array) {
+    return reduce(array, Long.MAX_VALUE, Math::min);
+  }
+
+  public static long max(BigLongArray array) {
+    return reduce(array, Long.MIN_VALUE, Math::max);
+  }
+
+  // mapped files, ints and longs are read as long
+
+  public static long reduce(MappedFile file, long identity, LongBinaryOperator op) {
+    ForkJoinPool p = pool;
+    MappedReducer task = new MappedReducer(file, identity, op, p.getParallelism());
+    p.invoke(task);
+    return task.getResult();
+  }
+
+  public static double reduceDoubles(MappedFile file, double identity, DoubleBinaryOperator op) {
+    ForkJoinPool p = pool;
+    MappedDoubleReducer task = new MappedDoubleReducer(file, identity, op, p.getParallelism());
+    p.invoke(task);
+    return task.getResult();
+  }
+
+  public static long sum(MappedFile file) {
+    return reduce(file, 0L, Long::sum);
+  }
+
+  public static double sumDoubles(MappedFile file) {
+    return reduceDoubles(file, 0.0, Double::sum);
+  }
+
+  private static long[] histogram(int length, IntUnaryOperator bucketAt, int buckets) {
+    ForkJoinPool p = pool;
+    HistogramReducer task = new HistogramReducer(length, bucketAt, buckets, p.getParallelism());
+    p.invoke(task);
+    return task.getCounts();
+  }
+
+}
@@ -0,0 +1,144 @@
+package com.excella.modernjava.forkjoin;
+
+/**
+ * Open-addressing word to count table with linear probing, one per fork/join leaf. Words are hashed
+ * and compared straight from the source text, a String is only allocated the first time a word is
+ * seen.
+ */
+class TermTable {
+
+  private static final int INITIAL_CAPACITY = 1 << 10;
+
+  private String[] words;
+  private long[] counts;
+  private int[] hashes;
+  private int size;
+  private int mask;
+
+  TermTable() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    words = new String[capacity];
+    counts = new long[capacity];
+    hashes = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int capacity() {
+    return words.length;
+  }
+
+  String wordAt(int slot) {
+    return words[slot];
+  }
+
+  long countAt(int slot) {
+    return counts[slot];
+  }
+
+  void add(CharSequence text, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + text.charAt(i);
+    }
+    int slot = spread(hash) & mask;
+    while (words[slot] != null) {
+      if (hashes[slot] == hash && regionMatches(words[slot], text, start, end)) {
+        counts[slot]++;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    insert(slot, text.subSequence(start, end).toString(), hash, 1);
+  }
+
+  void add(String word, long count) {
+    int hash = word.hashCode();
+    int slot = spread(hash) & mask;
+    while (words[slot] != null) {
+      if (hashes[slot] == hash && words[slot].equals(word)) {
+        counts[slot] += count;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    insert(slot, word, hash, count);
+  }
+
+  long get(String word) {
+    int hash = word.hashCode();
+    int slot = spread(hash) & mask;
+    while (words[slot] != null) {
+      if (hashes[slot] == hash && words[slot].equals(word)) {
+        return counts[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return 0;
+  }
+
+  /**
+   * Merges {@code other} into the bigger of the two tables and returns that one.
+   */
+  TermTable merge(TermTable other) {
+    TermTable target = size >= other.size ? this : other;
+    TermTable source = target == this ? other : this;
+    for (int slot = 0; slot < source.words.length; slot++) {
+      if (source.words[slot] != null) {
+        target.add(source.words[slot], source.counts[slot]);
+      }
+    }
+    return target;
+  }
+
+  private void insert(int slot, String word, int hash, long count) {
+    words[slot] = word;
+    hashes[slot] = hash;
+    counts[slot] = count;
+    // keep the load factor under 1/2 so probe chains stay short
+    if (++size * 2 > words.length) {
+      rehash();
+    }
+  }
+
+  private void rehash() {
+    String[] oldWords = words;
+    long[] oldCounts = counts;
+    int[] oldHashes = hashes;
+    allocate(oldWords.length * 2);
+    for (int i = 0; i < oldWords.length; i++) {
+      if (oldWords[i] != null) {
+        int slot = spread(oldHashes[i]) & mask;
+        while (words[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        words[slot] = oldWords[i];
+        hashes[slot] = oldHashes[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+
+  private static boolean regionMatches(String word, CharSequence text, int start, int end) {
+    if (word.length() != end - start) {
+      return false;
+    }
+    for (int i = 0; i < word.length(); i++) {
+      if (word.charAt(i) != text.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int spread(int hash) {
+    return (hash ^ (hash >>> 16)) * 0x9E3779B1;
+  }
+
+}
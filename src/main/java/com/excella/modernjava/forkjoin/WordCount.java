@@ -1,7 +1,10 @@
 package com.excella.modernjava.forkjoin;
 
+import java.nio.file.Path;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -16,6 +19,7 @@ public class WordCount {
     System.out.println("Running word count Spliterator..."); 
     System.out.println("Found (iterative) " + countWordsIteratively(SENTENCE) + " words");
     System.out.println("Found (parallel) " + countWords(SENTENCE) + " words");
+    System.out.println("Found (parallel, unboxed) " + countWordsUnboxed(SENTENCE) + " words");
   }
 
   public static int countWordsIteratively(String s) {
@@ -47,6 +51,23 @@ public class WordCount {
     return countWords(stream);
   }
 
+  /**
+   * Same count over an IntStream of chars: the spliterator splits on plain index ranges (no copy, no
+   * need to look for a space) and each chunk keeps a primitive {@link WordStats}, whose combine fixes
+   * up words cut in two by a split.
+   */
+  public static int countWordsUnboxed(CharSequence s) {
+    IntStream stream = StreamSupport.intStream(new CharSpliterator(s, 0, s.length()), true);
+    return stream.collect(WordStats::new, WordStats::accept, WordStats::combine).words;
+  }
+
+  /**
+   * Counts the words of a UTF-8/ASCII file without loading it on the heap, see {@link MappedWordCount}.
+   */
+  public static long countWords(Path file) {
+    return MappedWordCount.countWords(file);
+  }
+
   private static int countWords(Stream<Character> stream) {
     WordCounter wordCounter = stream.reduce(new WordCounter(0, true), WordCounter::accumulate, WordCounter::combine);
     return wordCounter.getCounter();
@@ -92,8 +113,11 @@ public class WordCount {
 
     @Override
     public boolean tryAdvance(Consumer<? super Character> action) {
+      if (currentChar >= string.length()) {
+        return false;
+      }
       action.accept(string.charAt(currentChar++));
-      return currentChar < string.length();
+      return true;
     }
 
     @Override
@@ -124,4 +148,91 @@ public class WordCount {
 
   }
 
-}
\ No newline at end of file
+  private static class WordStats {
+
+    private int words;
+    private boolean empty = true;
+    private boolean startsInWord;
+    private boolean lastSpace = true;
+
+    public void accept(int c) {
+      boolean space = Character.isWhitespace(c);
+      if (empty) {
+        startsInWord = !space;
+        empty = false;
+      }
+      if (!space && lastSpace) {
+        words++;
+      }
+      lastSpace = space;
+    }
+
+    public void combine(WordStats other) {
+      if (other.empty) {
+        return;
+      }
+      if (empty) {
+        startsInWord = other.startsInWord;
+        empty = false;
+      }
+      // a word running across the split was counted on both sides
+      words += other.words - (!lastSpace && other.startsInWord ? 1 : 0);
+      lastSpace = other.lastSpace;
+    }
+
+  }
+
+  private static class CharSpliterator implements Spliterator.OfInt {
+
+    private final CharSequence chars;
+    private int index;
+    private final int fence;
+
+    private CharSpliterator(CharSequence chars, int index, int fence) {
+      this.chars = chars;
+      this.index = index;
+      this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(chars.charAt(index++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+      for (int i = index; i < fence; i++) {
+        action.accept(chars.charAt(i));
+      }
+      index = fence;
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+      int middle = (index + fence) >>> 1;
+      if (middle - index < 1024) {
+        return null;
+      }
+      Spliterator.OfInt prefix = new CharSpliterator(chars, index, middle);
+      index = middle;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+      // a StringBuilder or CharBuffer can still change under the stream, only a String can't
+      return ORDERED + SIZED + SUBSIZED + NONNULL + (chars instanceof String ? IMMUTABLE : 0);
+    }
+
+  }
+
+}
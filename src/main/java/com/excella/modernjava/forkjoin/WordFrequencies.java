@@ -0,0 +1,291 @@
+package com.excella.modernjava.forkjoin;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Word frequency index built in parallel: the text is cut into whitespace aligned ranges, every
+ * fork/join leaf counts its range into its own {@link TermTable} and the tables are merged up the
+ * tree, so no map is shared between workers.
+ *
+ * Words are separated by Character.isWhitespace, like in {@link WordCount}, and compared exactly.
+ */
+public class WordFrequencies {
+
+  private static final int MIN_RANGE = 1 << 16;
+  /** Chars decoded at a time per file region, so a worker holds megabytes and not the whole region. */
+  static final int DECODE_WINDOW = 1 << 20;
+
+  private final String[] words;
+  private final long[] counts;
+  private final TermTable table;
+  private int[] byWord;
+
+  private WordFrequencies(TermTable table) {
+    this.table = table;
+    this.words = new String[table.size()];
+    this.counts = new long[table.size()];
+    int n = 0;
+    for (int slot = 0; slot < table.capacity(); slot++) {
+      if (table.wordAt(slot) != null) {
+        words[n] = table.wordAt(slot);
+        counts[n++] = table.countAt(slot);
+      }
+    }
+  }
+
+  public static WordFrequencies of(CharSequence text) {
+    return of(text, Reducers.pool());
+  }
+
+  public static WordFrequencies of(CharSequence text, ForkJoinPool pool) {
+    int range = Math.max(MIN_RANGE, text.length() / (pool.getParallelism() * 4));
+    return new WordFrequencies(pool.invoke(new TextTask(text, 0, text.length(), range)));
+  }
+
+  /**
+   * Indexes a UTF-8 file. Every region picked by {@link MappedWordCount} is mapped and decoded on its
+   * own, its boundaries sit on ASCII whitespace so no multi-byte character is cut. A region is
+   * decoded DECODE_WINDOW chars at a time, and a word cut by the window is carried into the next one.
+   */
+  public static WordFrequencies of(Path file) {
+    ForkJoinPool pool = Reducers.pool();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] bounds = MappedWordCount.regions(channel, pool.getParallelism());
+      return new WordFrequencies(pool.invoke(new FileTask(channel, bounds, 0, bounds.length - 1)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public int distinctWords() {
+    return words.length;
+  }
+
+  public long count(String word) {
+    return table.get(word);
+  }
+
+  /**
+   * The k most frequent words, most frequent first and equally frequent ones alphabetically, with a
+   * heap of k entries.
+   */
+  public List<Map.Entry<String, Long>> topK(int k) {
+    // ascending, so the heap head is the entry to drop: least frequent, then last alphabetically
+    Comparator<Integer> order =
+        Comparator.<Integer>comparingLong(i -> counts[i]).thenComparing(i -> words[i], Comparator.reverseOrder());
+    PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, k), order);
+    for (int i = 0; i < words.length && k > 0; i++) {
+      if (heap.size() < k) {
+        heap.add(i);
+      } else if (order.compare(i, heap.peek()) > 0) {
+        heap.poll();
+        heap.add(i);
+      }
+    }
+    List<Map.Entry<String, Long>> result = new ArrayList<>(heap.size());
+    while (!heap.isEmpty()) {
+      int i = heap.poll();
+      result.add(Map.entry(words[i], counts[i]));
+    }
+    Collections.reverse(result);
+    return result;
+  }
+
+  /**
+   * Words starting with {@code prefix} in alphabetical order, binary searched in a sorted view built
+   * on the first call.
+   */
+  public List<Map.Entry<String, Long>> withPrefix(String prefix) {
+    int[] sorted = sortedByWord();
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (words[sorted[middle]].compareTo(prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    List<Map.Entry<String, Long>> result = new ArrayList<>();
+    for (int i = low; i < sorted.length && words[sorted[i]].startsWith(prefix); i++) {
+      result.add(Map.entry(words[sorted[i]], counts[sorted[i]]));
+    }
+    return result;
+  }
+
+  private synchronized int[] sortedByWord() {
+    if (byWord == null) {
+      byWord = Arrays.stream(indexes()).boxed()
+          .sorted(Comparator.comparing(i -> words[i]))
+          .mapToInt(Integer::intValue)
+          .toArray();
+    }
+    return byWord;
+  }
+
+  private int[] indexes() {
+    int[] indexes = new int[words.length];
+    Arrays.setAll(indexes, i -> i);
+    return indexes;
+  }
+
+  static TermTable countRange(CharSequence text, int start, int end) {
+    TermTable table = new TermTable();
+    addRange(table, text, start, end);
+    return table;
+  }
+
+  private static void addRange(TermTable table, CharSequence text, int start, int end) {
+    int i = start;
+    while (i < end) {
+      while (i < end && Character.isWhitespace(text.charAt(i))) {
+        i++;
+      }
+      int wordStart = i;
+      while (i < end && !Character.isWhitespace(text.charAt(i))) {
+        i++;
+      }
+      if (i > wordStart) {
+        table.add(text, wordStart, i);
+      }
+    }
+  }
+
+  /**
+   * Words in [start, end) of the file, decoded through a DECODE_WINDOW char buffer from mappings of
+   * at most MAX_MAPPING bytes.
+   */
+  static TermTable countRegion(FileChannel channel, long start, long end) throws IOException {
+    TermTable table = new TermTable();
+    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    CharBuffer chars = CharBuffer.allocate(DECODE_WINDOW);
+    long position = start;
+    boolean last;
+    do {
+      last = end - position <= MappedWordCount.MAX_MAPPING;
+      ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position,
+          Math.min(MappedWordCount.MAX_MAPPING, end - position));
+      while (decoder.decode(bytes, chars, last).isOverflow()) {
+        chars = drainWords(table, chars);
+      }
+      // a character cut by the mapping stays in bytes and is mapped again with the next window
+      position += bytes.position();
+    } while (!last);
+    while (decoder.flush(chars).isOverflow()) {
+      chars = drainWords(table, chars);
+    }
+    chars.flip();
+    addRange(table, chars, 0, chars.limit());
+    return table;
+  }
+
+  /**
+   * Adds the words of a full buffer up to its last whitespace and keeps the rest, the start of a
+   * word that may go on in the next window; a buffer holding a single word is doubled instead.
+   */
+  private static CharBuffer drainWords(TermTable table, CharBuffer chars) {
+    chars.flip();
+    int cut = chars.limit();
+    while (cut > 0 && !Character.isWhitespace(chars.get(cut - 1))) {
+      cut--;
+    }
+    if (cut == 0) {
+      return CharBuffer.allocate(chars.capacity() * 2).put(chars);
+    }
+    addRange(table, chars, 0, cut);
+    chars.position(cut);
+    return chars.compact();
+  }
+
+  private static class TextTask extends RecursiveTask<TermTable> {
+
+    private final CharSequence text;
+    private final int start;
+    private final int end;
+    private final int range;
+
+    TextTask(CharSequence text, int start, int end, int range) {
+      this.text = text;
+      this.start = start;
+      this.end = end;
+      this.range = range;
+    }
+
+    @Override
+    protected TermTable compute() {
+      if (end - start <= range) {
+        return countRange(text, start, end);
+      }
+      // move the split onto whitespace so no word is cut in two, like WordCounterSpliterator
+      int split = (start + end) >>> 1;
+      while (split < end && !Character.isWhitespace(text.charAt(split))) {
+        split++;
+      }
+      if (split == end) {
+        return countRange(text, start, end);
+      }
+      TextTask leftTask = new TextTask(text, start, split, range);
+      leftTask.fork();
+      TermTable right = new TextTask(text, split, end, range).compute();
+      return leftTask.join().merge(right);
+    }
+
+  }
+
+  private static class FileTask extends RecursiveTask<TermTable> {
+
+    private final FileChannel channel;
+    private final long[] bounds;
+    private final int from;
+    private final int to;
+
+    FileTask(FileChannel channel, long[] bounds, int from, int to) {
+      this.channel = channel;
+      this.bounds = bounds;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected TermTable compute() {
+      if (to - from <= 1) {
+        if (from == to || bounds[to] == bounds[from]) {
+          return new TermTable();
+        }
+        try {
+          return countRegion(channel, bounds[from], bounds[to]);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      int middle = (from + to) >>> 1;
+      FileTask leftTask = new FileTask(channel, bounds, from, middle);
+      leftTask.fork();
+      TermTable right = new FileTask(channel, bounds, middle, to).compute();
+      return leftTask.join().merge(right);
+    }
+
+  }
+
+}
@@ -0,0 +1,314 @@
+package com.excella.modernjava.forkjoin.distributed;
+
+import com.excella.modernjava.forkjoin.MappedWordCount;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Splits sums and word counts into ranges and ships them to {@link Worker} JVMs over local TCP,
+ * then adds up the partial results. Workers connect to the coordinator, and may join at any time.
+ *
+ * Everything runs on the calling thread around one NIO selector: every worker gets one task at a
+ * time, and when a worker disconnects or holds a task past the task timeout, it is dropped and its
+ * task goes back in the queue for the others. A job fails if a worker reports an error or when no
+ * worker is left for WORKER_TIMEOUT. When a job ends, for whatever reason, every assignment is
+ * cleared, so a late answer to one of its tasks can't be counted in the next job.
+ */
+public class Coordinator implements AutoCloseable {
+
+  static final int TASKS_PER_WORKER = 4;
+  static final Duration WORKER_TIMEOUT = Duration.ofSeconds(30);
+  static final Duration DEFAULT_TASK_TIMEOUT = Duration.ofSeconds(60);
+
+  private final ServerSocketChannel server;
+  private final Selector selector;
+  private final List<Connection> workers = new ArrayList<>();
+  private long nextTaskId;
+  private long taskTimeoutNanos = DEFAULT_TASK_TIMEOUT.toNanos();
+
+  private Coordinator(ServerSocketChannel server, Selector selector) {
+    this.server = server;
+    this.selector = selector;
+  }
+
+  /**
+   * Listens on the loopback interface, port 0 picks a free port.
+   */
+  public static Coordinator start(int port) {
+    try {
+      ServerSocketChannel server = ServerSocketChannel.open();
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+      server.configureBlocking(false);
+      Selector selector = Selector.open();
+      server.register(selector, SelectionKey.OP_ACCEPT);
+      return new Coordinator(server, selector);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public int getPort() {
+    return server.socket().getLocalPort();
+  }
+
+  /**
+   * How long a worker may hold one task before it is considered hung, dropped, and its range handed
+   * to another worker.
+   */
+  public void setTaskTimeout(Duration timeout) {
+    this.taskTimeoutNanos = timeout.toNanos();
+  }
+
+  public int getWorkerCount() {
+    return workers.size();
+  }
+
+  /**
+   * Accepts connections until {@code count} workers are connected or the timeout expires, and
+   * returns the number of connected workers.
+   */
+  public int awaitWorkers(int count, Duration timeout) {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    try {
+      while (workers.size() < count && System.nanoTime() < deadline) {
+        poll(Math.max(1, (deadline - System.nanoTime()) / 1_000_000), null);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return workers.size();
+  }
+
+  /**
+   * Sum of the longs in [from, to].
+   */
+  public long sum(long from, long to) {
+    int parts = (int) Math.max(1, Math.min(to - from + 1, Math.max(1, workers.size()) * TASKS_PER_WORKER));
+    long length = to - from + 1;
+    Deque<Task> tasks = new ArrayDeque<>();
+    long start = from;
+    for (int i = 0; i < parts; i++) {
+      long end = from + length * (i + 1) / parts - 1;
+      long taskId = nextTaskId++;
+      tasks.add(new Task(taskId, Frames.sum(taskId, start, end)));
+      start = end + 1;
+    }
+    return run(tasks);
+  }
+
+  /**
+   * Word count of a file all workers can read at the same path, split on whitespace aligned regions.
+   */
+  public long countWords(Path file) {
+    String path = file.toAbsolutePath().toString();
+    // regions() already cuts REGIONS_PER_WORKER regions per part, so it gets the worker count
+    long[] bounds = MappedWordCount.regions(file, Math.max(1, workers.size()));
+    Deque<Task> tasks = new ArrayDeque<>();
+    for (int i = 0; i + 1 < bounds.length; i++) {
+      long taskId = nextTaskId++;
+      tasks.add(new Task(taskId, Frames.words(taskId, path, bounds[i], bounds[i + 1])));
+    }
+    return run(tasks);
+  }
+
+  private long run(Deque<Task> pending) {
+    JobState job = new JobState(pending);
+    long lastWorkerSeen = System.nanoTime();
+    try {
+      while (job.remaining > 0) {
+        long now = System.nanoTime();
+        for (Connection worker : new ArrayList<>(workers)) {
+          if (worker.task != null && now - worker.assignedAt > taskTimeoutNanos) {
+            drop(worker, pending);
+          } else if (worker.task == null && worker.out == null && !pending.isEmpty()) {
+            assign(worker, pending.poll(), pending);
+          }
+        }
+        if (!workers.isEmpty()) {
+          lastWorkerSeen = System.nanoTime();
+        } else if (System.nanoTime() - lastWorkerSeen > WORKER_TIMEOUT.toNanos()) {
+          throw new IllegalStateException("No worker connected for " + WORKER_TIMEOUT + ", "
+              + job.remaining + " task(s) left");
+        }
+        poll(1000, job);
+      }
+      return job.total;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      // task ids are never reused, so whatever still comes back for this job is ignored by read()
+      for (Connection worker : workers) {
+        worker.task = null;
+      }
+    }
+  }
+
+  private void assign(Connection worker, Task task, Deque<Task> pending) {
+    worker.task = task;
+    worker.assignedAt = System.nanoTime();
+    worker.out = task.frame.duplicate();
+    flush(worker, pending);
+  }
+
+  /**
+   * Writes as much of the worker's outgoing frame as the socket takes, and waits for OP_WRITE to
+   * send the rest instead of spinning on a full send buffer.
+   */
+  private void flush(Connection worker, Deque<Task> pending) {
+    try {
+      worker.channel.write(worker.out);
+      if (worker.out.hasRemaining()) {
+        worker.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      } else {
+        worker.out = null;
+        worker.key.interestOps(SelectionKey.OP_READ);
+      }
+    } catch (IOException e) {
+      drop(worker, pending);
+    }
+  }
+
+  private void poll(long timeoutMillis, JobState job) throws IOException {
+    selector.select(timeoutMillis);
+    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+    while (keys.hasNext()) {
+      SelectionKey key = keys.next();
+      keys.remove();
+      if (!key.isValid()) {
+        continue;
+      }
+      if (key.isAcceptable()) {
+        accept();
+        continue;
+      }
+      Connection worker = (Connection) key.attachment();
+      if (key.isWritable() && worker.out != null) {
+        flush(worker, job == null ? new ArrayDeque<>() : job.pending);
+      }
+      if (key.isValid() && key.isReadable()) {
+        read(worker, job);
+      }
+    }
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = server.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(true);
+      Connection worker = new Connection(channel);
+      worker.key = channel.register(selector, SelectionKey.OP_READ, worker);
+      workers.add(worker);
+    }
+  }
+
+  private void read(Connection worker, JobState job) {
+    Deque<Task> pending = job == null ? new ArrayDeque<>() : job.pending;
+    try {
+      if (worker.channel.read(worker.in) < 0) {
+        drop(worker, pending);
+        return;
+      }
+      ByteBuffer frame;
+      while ((frame = Frames.next(worker.in)) != null) {
+        byte type = frame.get();
+        long taskId = frame.getLong();
+        if (worker.task == null || worker.task.id != taskId || job == null) {
+          continue;
+        }
+        if (type == Frames.ERROR) {
+          throw new IllegalStateException("Task " + taskId + " failed on a worker: " + Frames.getString(frame));
+        }
+        job.total += frame.getLong();
+        job.remaining--;
+        worker.task = null;
+      }
+    } catch (IOException e) {
+      drop(worker, pending);
+    }
+  }
+
+  private void drop(Connection worker, Deque<Task> pending) {
+    workers.remove(worker);
+    if (worker.task != null) {
+      pending.addFirst(worker.task);
+      worker.task = null;
+    }
+    try {
+      worker.channel.close();
+    } catch (IOException ignored) {
+      // already gone
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      for (Connection worker : workers) {
+        worker.channel.close();
+      }
+      workers.clear();
+      selector.close();
+      server.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static class Task {
+
+    private final long id;
+    private final ByteBuffer frame;
+
+    Task(long id, ByteBuffer frame) {
+      this.id = id;
+      this.frame = frame;
+    }
+
+  }
+
+  private static class Connection {
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(Frames.MAX_FRAME + Integer.BYTES);
+    private SelectionKey key;
+    /** Rest of the frame being sent, a new task is only assigned once it is out. */
+    private ByteBuffer out;
+    private Task task;
+    private long assignedAt;
+
+    Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+  }
+
+  private static class JobState {
+
+    private final Deque<Task> pending;
+    private int remaining;
+    private long total;
+
+    JobState(Deque<Task> pending) {
+      this.pending = pending;
+      this.remaining = pending.size();
+    }
+
+  }
+
+}
@@ -0,0 +1,132 @@
+package com.excella.modernjava.forkjoin.distributed;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format between {@link Coordinator} and {@link Worker}: every frame is an int length followed
+ * by that many bytes, starting with a type byte and the task id.
+ *
+ * <pre>
+ * SUM    taskId:long from:long to:long            sum of the longs in [from, to]
+ * WORDS  taskId:long start:long end:long path     words in the byte range [start, end) of a file
+ * RESULT taskId:long value:long
+ * ERROR  taskId:long message
+ * </pre>
+ * Strings are UTF-8, prefixed by their int length.
+ */
+final class Frames {
+
+  static final byte SUM = 1;
+  static final byte WORDS = 2;
+  static final byte RESULT = 3;
+  static final byte ERROR = 4;
+
+  static final int MAX_FRAME = 1 << 16;
+
+  private Frames() {
+  }
+
+  static ByteBuffer sum(long taskId, long from, long to) {
+    return frame(SUM, taskId, 2 * Long.BYTES).putLong(from).putLong(to).flip();
+  }
+
+  static ByteBuffer words(long taskId, String path, long start, long end) {
+    byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+    return frame(WORDS, taskId, 2 * Long.BYTES + Integer.BYTES + bytes.length)
+        .putLong(start).putLong(end).putInt(bytes.length).put(bytes).flip();
+  }
+
+  static ByteBuffer result(long taskId, long value) {
+    return frame(RESULT, taskId, Long.BYTES).putLong(value).flip();
+  }
+
+  static ByteBuffer error(long taskId, String message) {
+    byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+    int length = Math.min(bytes.length, MAX_FRAME / 2);
+    return frame(ERROR, taskId, Integer.BYTES + length).putInt(length).put(bytes, 0, length).flip();
+  }
+
+  private static ByteBuffer frame(byte type, long taskId, int bodyLength) {
+    int length = 1 + Long.BYTES + bodyLength;
+    return ByteBuffer.allocate(Integer.BYTES + length).putInt(length).put(type).putLong(taskId);
+  }
+
+  static String getString(ByteBuffer frame) {
+    byte[] bytes = new byte[frame.getInt()];
+    frame.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Next complete frame buffered in {@code in} (in write mode), positioned after its length, or null
+   * when more bytes are needed. Consumed bytes are compacted away.
+   */
+  static ByteBuffer next(ByteBuffer in) throws IOException {
+    in.flip();
+    try {
+      if (in.remaining() < Integer.BYTES) {
+        return null;
+      }
+      int length = in.getInt(in.position());
+      if (length <= 0 || length > MAX_FRAME) {
+        throw new IOException("Bad frame length " + length);
+      }
+      if (in.remaining() < Integer.BYTES + length) {
+        return null;
+      }
+      in.position(in.position() + Integer.BYTES);
+      ByteBuffer frame = ByteBuffer.allocate(length);
+      int limit = in.limit();
+      in.limit(in.position() + length);
+      frame.put(in).flip();
+      in.limit(limit);
+      return frame;
+    } finally {
+      in.compact();
+    }
+  }
+
+  /**
+   * Blocking read of one frame, null on a clean end of stream.
+   */
+  static ByteBuffer read(SocketChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    if (!readFully(channel, header, true)) {
+      return null;
+    }
+    int length = header.flip().getInt();
+    if (length <= 0 || length > MAX_FRAME) {
+      throw new IOException("Bad frame length " + length);
+    }
+    ByteBuffer frame = ByteBuffer.allocate(length);
+    readFully(channel, frame, false);
+    return frame.flip();
+  }
+
+  private static boolean readFully(SocketChannel channel, ByteBuffer buffer, boolean eofAllowed) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        if (eofAllowed && buffer.position() == 0) {
+          return false;
+        }
+        throw new EOFException("Connection closed in the middle of a frame");
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the whole frame, for blocking channels: on a non-blocking one a full send buffer would
+   * make this spin.
+   */
+  static void write(SocketChannel channel, ByteBuffer frame) throws IOException {
+    while (frame.hasRemaining()) {
+      channel.write(frame);
+    }
+  }
+
+}
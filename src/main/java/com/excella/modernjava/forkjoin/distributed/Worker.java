@@ -0,0 +1,60 @@
+package com.excella.modernjava.forkjoin.distributed;
+
+import com.excella.modernjava.forkjoin.MappedWordCount;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.stream.LongStream;
+
+/**
+ * Worker JVM of a distributed job: connects to a {@link Coordinator}, then computes one task at a
+ * time on all of its own cores and sends the partial result back, until the coordinator hangs up.
+ *
+ * Start one per process with {@code java ... Worker <host> <port>}.
+ */
+public class Worker {
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: Worker <coordinator host> <coordinator port>");
+      System.exit(1);
+    }
+    run(args[0], Integer.parseInt(args[1]));
+  }
+
+  public static void run(String host, int port) throws IOException {
+    try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+      ByteBuffer frame;
+      while ((frame = Frames.read(channel)) != null) {
+        byte type = frame.get();
+        long taskId = frame.getLong();
+        ByteBuffer reply;
+        try {
+          reply = Frames.result(taskId, compute(type, frame));
+        } catch (RuntimeException e) {
+          reply = Frames.error(taskId, e.toString());
+        }
+        Frames.write(channel, reply);
+      }
+    }
+  }
+
+  static long compute(byte type, ByteBuffer frame) {
+    switch (type) {
+      case Frames.SUM:
+        long from = frame.getLong();
+        long to = frame.getLong();
+        return LongStream.rangeClosed(from, to).parallel().sum();
+      case Frames.WORDS:
+        long start = frame.getLong();
+        long end = frame.getLong();
+        return MappedWordCount.countWords(Paths.get(Frames.getString(frame)), start, end);
+      default:
+        throw new IllegalArgumentException("Unknown task type " + type);
+    }
+  }
+
+}
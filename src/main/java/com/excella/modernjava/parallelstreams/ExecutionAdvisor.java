@@ -0,0 +1,111 @@
+package com.excella.modernjava.parallelstreams;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
+
+/**
+ * Decides whether a stream pipeline should run sequentially, on the common pool or on a dedicated
+ * {@link IsolatedPool}, from a simple cost model: the total work is size * cost per element, and going
+ * parallel only pays once that work dwarfs the fork/join overhead, more so for sources that split
+ * badly. Jobs long enough to hog the common pool go to the dedicated pool.
+ *
+ * When no cost is given, a pipeline key is first judged at MIN_NANOS_PER_ELEMENT, the cheapest an
+ * element can be, so a source big enough to go parallel even then does so from the first call. Every
+ * run over at least MIN_CALIBRATION_SIZE elements is timed and folded into the cached cost per
+ * element as a moving average, so a cost that was measured too low or too high is corrected by the
+ * following runs, parallel ones included.
+ */
+public class ExecutionAdvisor {
+
+  public enum Mode {
+    SEQUENTIAL, COMMON_POOL, DEDICATED_POOL
+  }
+
+  /** How cheaply a source splits into balanced halves. */
+  public enum Splittability {
+    /** Arrays, ArrayList, IntStream.range, {@link Sequences}. */
+    EXCELLENT(1),
+    /** HashSet, TreeSet. */
+    GOOD(2),
+    /** LinkedList, Stream.iterate, I/O backed sources. */
+    POOR(10);
+
+    private final int overheadFactor;
+
+    Splittability(int overheadFactor) {
+      this.overheadFactor = overheadFactor;
+    }
+  }
+
+  static final long PARALLEL_THRESHOLD_NANOS = 100_000;
+  static final long DEDICATED_THRESHOLD_NANOS = 100_000_000;
+  static final long MIN_CALIBRATION_SIZE = 10_000;
+  /** Cost assumed for a key with no calibration yet, about one primitive operation. */
+  static final double MIN_NANOS_PER_ELEMENT = 1.0;
+  /** Weight of the latest run in the cached cost. */
+  static final double SMOOTHING = 0.5;
+
+  private final IsolatedPool dedicatedPool;
+  private final int parallelism;
+  private final Map<String, Double> nanosPerElement = new ConcurrentHashMap<>();
+
+  public ExecutionAdvisor(IsolatedPool dedicatedPool) {
+    this.dedicatedPool = dedicatedPool;
+    this.parallelism = Runtime.getRuntime().availableProcessors();
+  }
+
+  public Mode advise(long size, double nanosPerElement, Splittability splittability) {
+    double work = size * nanosPerElement;
+    if (parallelism < 2 || work < PARALLEL_THRESHOLD_NANOS * splittability.overheadFactor) {
+      return Mode.SEQUENTIAL;
+    }
+    return work / parallelism >= DEDICATED_THRESHOLD_NANOS ? Mode.DEDICATED_POOL : Mode.COMMON_POOL;
+  }
+
+  /**
+   * Runs the pipeline with the mode picked for the calibrated cost of {@code key}, or for
+   * MIN_NANOS_PER_ELEMENT while it has none, and refines that cost with the run's timing.
+   */
+  public <S extends BaseStream<?, S>, R> R execute(String key, long size, Splittability splittability,
+      Supplier<S> source, Function<S, R> pipeline) {
+    double cost = nanosPerElement.getOrDefault(key, MIN_NANOS_PER_ELEMENT);
+    Mode mode = advise(size, cost, splittability);
+    long start = System.nanoTime();
+    R result = run(mode, source, pipeline);
+    if (size >= MIN_CALIBRATION_SIZE) {
+      // a parallel run is charged for all cores as if it sped up perfectly, which can only overstate the cost
+      double cores = mode == Mode.SEQUENTIAL ? 1 : parallelism;
+      double measured = (System.nanoTime() - start) * cores / size;
+      nanosPerElement.merge(key, measured, (old, latest) -> SMOOTHING * latest + (1 - SMOOTHING) * old);
+    }
+    return result;
+  }
+
+  public <S extends BaseStream<?, S>, R> R execute(long size, double nanosPerElement, Splittability splittability,
+      Supplier<S> source, Function<S, R> pipeline) {
+    return run(advise(size, nanosPerElement, splittability), source, pipeline);
+  }
+
+  private <S extends BaseStream<?, S>, R> R run(Mode mode, Supplier<S> source, Function<S, R> pipeline) {
+    switch (mode) {
+      case DEDICATED_POOL:
+        return dedicatedPool.run(() -> pipeline.apply(source.get().parallel()));
+      case COMMON_POOL:
+        return pipeline.apply(source.get().parallel());
+      default:
+        return pipeline.apply(source.get().sequential());
+    }
+  }
+
+  public Map<String, Double> getCalibrations() {
+    return Map.copyOf(nanosPerElement);
+  }
+
+  public void forget(String key) {
+    nanosPerElement.remove(key);
+  }
+
+}
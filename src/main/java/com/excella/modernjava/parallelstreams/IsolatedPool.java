@@ -0,0 +1,101 @@
+package com.excella.modernjava.parallelstreams;
+
+import com.excella.modernjava.common.perf.LatencyHistogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
+
+/**
+ * A named ForkJoinPool with its own parallelism, so a heavy batch reduction can't take every worker
+ * of the common pool away from other parallel work. A parallel stream started from a task running
+ * in a ForkJoinPool forks its subtasks into that pool, which is what {@link #run(Supplier)} relies on.
+ *
+ * Worker threads are named after the pool and every pool is registered by name, so {@link #stats()}
+ * can be polled for steals, queues, thread counts and the latency of the jobs it ran.
+ */
+public class IsolatedPool implements AutoCloseable {
+
+  private static final Map<String, IsolatedPool> POOLS = new ConcurrentHashMap<>();
+
+  private final String name;
+  private final ForkJoinPool pool;
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  private IsolatedPool(String name, int parallelism) {
+    this.name = name;
+    this.pool = new ForkJoinPool(parallelism, pool -> {
+      ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      worker.setName(name + "-worker-" + worker.getPoolIndex());
+      return worker;
+    }, null, false);
+  }
+
+  public static IsolatedPool create(String name, int parallelism) {
+    IsolatedPool pool = new IsolatedPool(name, parallelism);
+    if (POOLS.putIfAbsent(name, pool) != null) {
+      pool.pool.shutdown();
+      throw new IllegalArgumentException("A pool named " + name + " already exists");
+    }
+    return pool;
+  }
+
+  public static Map<String, IsolatedPool> all() {
+    return Map.copyOf(POOLS);
+  }
+
+  /**
+   * Runs the job, typically a parallel stream pipeline, inside this pool and waits for its result.
+   */
+  public <T> T run(Supplier<T> job) {
+    long start = System.nanoTime();
+    try {
+      return pool.submit(job::get).join();
+    } finally {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  public <T> T invoke(ForkJoinTask<T> task) {
+    long start = System.nanoTime();
+    try {
+      return pool.invoke(task);
+    } finally {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  private void record(long nanos) {
+    synchronized (latency) {
+      latency.record(nanos);
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  public PoolStats stats() {
+    LatencyHistogram snapshot = new LatencyHistogram();
+    synchronized (latency) {
+      snapshot.merge(latency);
+    }
+    return new PoolStats(name, pool.getParallelism(), pool.getPoolSize(), pool.getActiveThreadCount(),
+        pool.getRunningThreadCount(), pool.getQueuedTaskCount(), pool.getQueuedSubmissionCount(),
+        pool.getStealCount(), snapshot);
+  }
+
+  @Override
+  public void close() {
+    POOLS.remove(name, this);
+    pool.shutdown();
+  }
+
+}
@@ -1,29 +1,37 @@
 package com.excella.modernjava.parallelstreams;
 
+import com.excella.modernjava.common.perf.PerfHarness;
 import com.excella.modernjava.forkjoin.WordCount;
 import com.excella.modernjava.forkjoin.ForkJoinSumCalculator;
 
-import java.util.concurrent.ForkJoinPool;
-import java.util.function.Function;
-
 public class ParallelStreamHarness {
 
-  public static final ForkJoinPool FORK_JOIN_POOL = new ForkJoinPool();
+  public static final IsolatedPool FORK_JOIN_POOL =
+      IsolatedPool.create("parallel-stream-harness", Runtime.getRuntime().availableProcessors());
 
   public static void run() {
-    System.out.println("Iterative Sum done in: " + measurePerf(ParallelStreams::iterativeSum, 10_000_000L) + " msecs");
-    System.out.println("Sequential Sum done in: " + measurePerf(ParallelStreams::sequentialSum, 10_000_000L) + " msecs");
-    System.out.println("Parallel sum done in: " + measurePerf(ParallelStreams::parallelSum, 10_000_000L) + " msecs" );
-    System.out.println("Range sum done in: " + measurePerf(ParallelStreams::rangedSum, 10_000_000L) + " msecs");
-    System.out.println("Parallel range sum done in: " + measurePerf(ParallelStreams::parallelRangedSum, 10_000_000L) + " msecs" );
-    System.out.println("SideEffect traditional sum done in: " + measurePerf(ParallelStreams::sideEffectSum, 10_000_000L) + " msecs" );
+    PerfHarness perf = new PerfHarness();
+    perf.measure("Iterative Sum", ParallelStreams::iterativeSum, 10_000_000L);
+    perf.measure("Sequential Sum", ParallelStreams::sequentialSum, 10_000_000L);
+    perf.measure("Parallel sum", ParallelStreams::parallelSum, 10_000_000L);
+    perf.measure("Jump iterate sum", ParallelStreams::jumpIterateSum, 10_000_000L);
+    perf.measure("Parallel jump iterate sum", ParallelStreams::parallelJumpIterateSum, 10_000_000L);
+    perf.measure("Range sum", ParallelStreams::rangedSum, 10_000_000L);
+    perf.measure("Parallel range sum", ParallelStreams::parallelRangedSum, 10_000_000L);
+    perf.measure("Adaptive range sum", ParallelStreams::adaptiveRangedSum, 10_000_000L);
+    perf.measure("Parallel range sum, isolated pool", n -> ParallelStreams.parallelRangedSum(n, FORK_JOIN_POOL), 10_000_000L);
+    perf.measure("SideEffect traditional sum", ParallelStreams::sideEffectSum, 10_000_000L);
     // NOTE, INACCURATE because of a data race on every access to total
-    System.out.println("SideEffect parallel sum done in: " + measurePerf(ParallelStreams::sideEffectParallelSum, 10_000_000L) + " msecs" );
+    perf.measure("SideEffect parallel sum", ParallelStreams::sideEffectParallelSum, 10_000_000L);
+    perf.measure("SideEffect striped parallel sum", ParallelStreams::stripedSideEffectParallelSum, 10_000_000L);
     // WARNING: Trying to parallize an iterate operation can use up your memory
-    //System.out.println("Parallel iterate forkJoinSum done in: " + measurePerf(ParallelStreams::parallelIterateSum, 10_000_000L) + " msecs" );
+    //perf.measure("Parallel iterate forkJoinSum", ParallelStreams::parallelIterateSum, 10_000_000L);
 
     // 7.2 Using fork/join framework directly    
-    System.out.println("ForkJoin sum done in: " + measurePerf(ForkJoinSumCalculator::forkJoinSum, 10_000_000L) + " msecs" );
+    perf.measure("ForkJoin sum", ForkJoinSumCalculator::forkJoinSum, 10_000_000L);
+
+    perf.printComparison();
+    System.out.println(FORK_JOIN_POOL.stats());
 
     // Custom Spliterator
     WordCount.run();
@@ -31,18 +39,4 @@ public class ParallelStreamHarness {
     
   }
 
-  public static <T, R> long measurePerf(Function<T, R> f, T input) {
-    long fastest = Long.MAX_VALUE;
-    for (int i = 0; i < 10; i++) {
-      long start = System.nanoTime();
-      R result = f.apply(input);
-      long duration = (System.nanoTime() - start) / 1_000_000;
-      System.out.println("Result: " + result);
-      if (duration < fastest) {
-        fastest = duration;
-      }
-    }
-    return fastest;
-  }
-
 }
@@ -1,5 +1,12 @@
 package com.excella.modernjava.parallelstreams;
 
+import com.excella.modernjava.forkjoin.MappedFile;
+import com.excella.modernjava.parallelstreams.ExecutionAdvisor.Splittability;
+
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.BaseStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
@@ -14,10 +21,15 @@ import java.util.stream.Stream;
 *    - sequential iterative
 *    - sequential stream
 *    - parallel stream, unoptimized
+*    - sequential and parallel iterate with a jump function
 *    - ranged sequential stream
 *    - ranaged (optimized) parallel stream
+*    - ranged parallel stream on an isolated pool
+*    - ranged stream going parallel only when it pays off
 *    - sum using mutable list
 *    - parallel sum using mutable list, side effects from data access race
+*    - parallel sum using a striped accumulator, side effects without the race
+*    - sequential and parallel sums over a memory-mapped file
 *
 * OUTPUT: numbers
 * 
@@ -25,6 +37,23 @@ import java.util.stream.Stream;
 
 public class ParallelStreams {
 
+  public static final ExecutionAdvisor ADVISOR = new ExecutionAdvisor(
+      IsolatedPool.create("parallel-streams-batch", Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * Runs the pipeline sequentially or in parallel depending on how much work it is, see
+   * {@link ExecutionAdvisor}. The cost per element of {@code key} is learned from its runs.
+   */
+  public static <S extends BaseStream<?, S>, R> R adaptive(String key, long size, Splittability splittability,
+      Supplier<S> source, Function<S, R> pipeline) {
+    return ADVISOR.execute(key, size, splittability, source, pipeline);
+  }
+
+  public static <S extends BaseStream<?, S>, R> R adaptive(long size, double nanosPerElement,
+      Splittability splittability, Supplier<S> source, Function<S, R> pipeline) {
+    return ADVISOR.execute(size, nanosPerElement, splittability, source, pipeline);
+  }
+
   public static long iterativeSum(long n) {
     long result = 0;
     for (long i = 0; i <= n; i++) {
@@ -46,6 +75,18 @@ public class ParallelStreams {
                  .reduce(Long::sum).get();
   }
 
+  // iterate with a jump function, splits like rangeClosed instead of buffering like Stream.iterate
+  public static long jumpIterateSum(long n) {
+    return Sequences.iterate(1L, i -> i + 1, (seed, k) -> seed + k, n)
+                    .sum();
+  }
+
+  public static long parallelJumpIterateSum(long n) {
+    return Sequences.iterate(1L, i -> i + 1, (seed, k) -> seed + k, n)
+                    .parallel()
+                    .sum();
+  }
+
   public static long rangedSum(long n) {
     return LongStream.rangeClosed(1, n)
                      .reduce(Long::sum).getAsLong();
@@ -57,6 +98,16 @@ public class ParallelStreams {
                      .reduce(Long::sum).getAsLong();
   }
 
+  public static long adaptiveRangedSum(long n) {
+    return adaptive("rangedSum", n, Splittability.EXCELLENT,
+                    () -> LongStream.rangeClosed(1, n), LongStream::sum);
+  }
+
+  // Same pipeline on a dedicated pool, so it can't starve other users of the common pool
+  public static long parallelRangedSum(long n, IsolatedPool pool) {
+    return pool.run(() -> parallelRangedSum(n));
+  }
+
   // NOTE: this causes a memory leak
   public static long parallelIterateSum(long n) {
     return LongStream.iterate(1L, i -> i + 1)
@@ -64,6 +115,18 @@ public class ParallelStreams {
                      .reduce(Long::sum).getAsLong();
   }
 
+  // Same reductions over a file of little-endian longs, streamed from the page cache instead of the heap
+  public static long mappedSum(Path file) {
+    return MappedFile.map(file, MappedFile.Element.LONG).longs()
+                     .sum();
+  }
+
+  public static long parallelMappedSum(Path file) {
+    return MappedFile.map(file, MappedFile.Element.LONG).longs()
+                     .parallel()
+                     .sum();
+  }
+
   public static long sideEffectSum(long n) {
     Accumulator accumulator = new Accumulator();
     LongStream.rangeClosed(1, n).forEach(accumulator::add);
@@ -76,6 +139,13 @@ public class ParallelStreams {
     return accumulator.total;
   }
 
+  // Same side effect, but on a striped accumulator: correct and without a single contended field
+  public static long stripedSideEffectParallelSum(long n) {
+    StripedLongAccumulator accumulator = StripedLongAccumulator.sum();
+    LongStream.rangeClosed(1, n).parallel().forEach(accumulator);
+    return accumulator.get();
+  }
+
   public static class Accumulator {
 
     private long total = 0;
@@ -0,0 +1,77 @@
+package com.excella.modernjava.parallelstreams;
+
+import com.excella.modernjava.common.perf.LatencyHistogram;
+
+/**
+ * Point in time view of an {@link IsolatedPool}.
+ */
+public class PoolStats {
+
+  private final String name;
+  private final int parallelism;
+  private final int poolSize;
+  private final int activeThreads;
+  private final int runningThreads;
+  private final long queuedTasks;
+  private final int queuedSubmissions;
+  private final long steals;
+  private final LatencyHistogram jobLatency;
+
+  PoolStats(String name, int parallelism, int poolSize, int activeThreads, int runningThreads, long queuedTasks,
+      int queuedSubmissions, long steals, LatencyHistogram jobLatency) {
+    this.name = name;
+    this.parallelism = parallelism;
+    this.poolSize = poolSize;
+    this.activeThreads = activeThreads;
+    this.runningThreads = runningThreads;
+    this.queuedTasks = queuedTasks;
+    this.queuedSubmissions = queuedSubmissions;
+    this.steals = steals;
+    this.jobLatency = jobLatency;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  public int getActiveThreads() {
+    return activeThreads;
+  }
+
+  public int getRunningThreads() {
+    return runningThreads;
+  }
+
+  public long getQueuedTasks() {
+    return queuedTasks;
+  }
+
+  public int getQueuedSubmissions() {
+    return queuedSubmissions;
+  }
+
+  public long getSteals() {
+    return steals;
+  }
+
+  public LatencyHistogram getJobLatency() {
+    return jobLatency;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: parallelism %d, threads %d (active %d, running %d), queued %d tasks + %d submissions,"
+        + " %d steals, %d jobs p50 %.3f ms p99 %.3f ms", name, parallelism, poolSize, activeThreads, runningThreads,
+        queuedTasks, queuedSubmissions, steals, jobLatency.count(), jobLatency.percentile(50) / 1e6,
+        jobLatency.percentile(99) / 1e6);
+  }
+
+}
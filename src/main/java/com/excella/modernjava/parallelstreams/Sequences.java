@@ -0,0 +1,218 @@
+package com.excella.modernjava.parallelstreams;
+
+import java.util.Spliterator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splittable replacements for {@code Stream.iterate(seed, next).limit(n)}.
+ *
+ * Stream.iterate can only be split by buffering its prefix, because element k is only known after
+ * computing elements 0..k-1. These sources also take a jump function returning element k straight
+ * from the seed, so a split starts the second half at its own index and each half then iterates
+ * with {@code next} like a sequential loop. The elements are primitives, nothing is boxed.
+ */
+public final class Sequences {
+
+  private Sequences() {
+  }
+
+  /**
+   * seed, next(seed), next(next(seed)), ... where {@code jump.applyAsLong(seed, k)} must equal next
+   * applied k times to seed.
+   */
+  public static LongStream iterate(long seed, LongUnaryOperator next, LongBinaryOperator jump, long count) {
+    checkCount(count);
+    return StreamSupport.longStream(new LongJumpSpliterator(seed, next, jump, 0, count, seed), false);
+  }
+
+  public static DoubleStream iterateDoubles(double seed, DoubleUnaryOperator next, JumpToDouble jump, long count) {
+    checkCount(count);
+    return StreamSupport.doubleStream(new DoubleJumpSpliterator(seed, next, jump, 0, count, seed), false);
+  }
+
+  /** first, first + step, first + 2 * step, ... in O(1) per jump. */
+  public static LongStream arithmetic(long first, long step, long count) {
+    return iterate(first, x -> x + step, (seed, k) -> seed + k * step, count);
+  }
+
+  public static DoubleStream arithmetic(double first, double step, long count) {
+    return iterateDoubles(first, x -> x + step, (seed, k) -> seed + k * step, count);
+  }
+
+  /** first, first * ratio, first * ratio^2, ... (wrapping on overflow) in O(log k) per jump. */
+  public static LongStream geometric(long first, long ratio, long count) {
+    return iterate(first, x -> x * ratio, (seed, k) -> seed * pow(ratio, k), count);
+  }
+
+  public static DoubleStream geometric(double first, double ratio, long count) {
+    return iterateDoubles(first, x -> x * ratio, (seed, k) -> seed * Math.pow(ratio, k), count);
+  }
+
+  private static void checkCount(long count) {
+    if (count < 0) {
+      throw new IllegalArgumentException(Long.toString(count));
+    }
+  }
+
+  static long pow(long base, long exponent) {
+    long result = 1;
+    while (exponent > 0) {
+      if ((exponent & 1) != 0) {
+        result *= base;
+      }
+      base *= base;
+      exponent >>= 1;
+    }
+    return result;
+  }
+
+  @FunctionalInterface
+  public interface JumpToDouble {
+    double valueAt(double seed, long k);
+  }
+
+  private static class LongJumpSpliterator implements Spliterator.OfLong {
+
+    private final long seed;
+    private final LongUnaryOperator next;
+    private final LongBinaryOperator jump;
+    private long index;
+    private final long fence;
+    private long current;
+
+    LongJumpSpliterator(long seed, LongUnaryOperator next, LongBinaryOperator jump, long index, long fence,
+        long current) {
+      this.seed = seed;
+      this.next = next;
+      this.jump = jump;
+      this.index = index;
+      this.fence = fence;
+      this.current = current;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+      long middle = (index + fence) >>> 1;
+      if (middle - index < 1024) {
+        return null;
+      }
+      Spliterator.OfLong prefix = new LongJumpSpliterator(seed, next, jump, index, middle, current);
+      index = middle;
+      current = jump.applyAsLong(seed, middle);
+      return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(current);
+      if (++index < fence) {
+        current = next.applyAsLong(current);
+      }
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+      long value = current;
+      for (long i = index; i < fence; i++) {
+        action.accept(value);
+        if (i + 1 < fence) {
+          value = next.applyAsLong(value);
+        }
+      }
+      index = fence;
+      current = value;
+    }
+
+    @Override
+    public long estimateSize() {
+      return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED + SIZED + SUBSIZED + IMMUTABLE + NONNULL;
+    }
+
+  }
+
+  private static class DoubleJumpSpliterator implements Spliterator.OfDouble {
+
+    private final double seed;
+    private final DoubleUnaryOperator next;
+    private final JumpToDouble jump;
+    private long index;
+    private final long fence;
+    private double current;
+
+    DoubleJumpSpliterator(double seed, DoubleUnaryOperator next, JumpToDouble jump, long index, long fence,
+        double current) {
+      this.seed = seed;
+      this.next = next;
+      this.jump = jump;
+      this.index = index;
+      this.fence = fence;
+      this.current = current;
+    }
+
+    @Override
+    public Spliterator.OfDouble trySplit() {
+      long middle = (index + fence) >>> 1;
+      if (middle - index < 1024) {
+        return null;
+      }
+      Spliterator.OfDouble prefix = new DoubleJumpSpliterator(seed, next, jump, index, middle, current);
+      index = middle;
+      current = jump.valueAt(seed, middle);
+      return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(DoubleConsumer action) {
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(current);
+      if (++index < fence) {
+        current = next.applyAsDouble(current);
+      }
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(DoubleConsumer action) {
+      double value = current;
+      for (long i = index; i < fence; i++) {
+        action.accept(value);
+        if (i + 1 < fence) {
+          value = next.applyAsDouble(value);
+        }
+      }
+      index = fence;
+      current = value;
+    }
+
+    @Override
+    public long estimateSize() {
+      return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED + SIZED + SUBSIZED + IMMUTABLE;
+    }
+
+  }
+
+}
@@ -0,0 +1,81 @@
+package com.excella.modernjava.parallelstreams;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Double counterpart of {@link StripedLongAccumulator}, cells hold the raw bits of a double and are
+ * updated with a compare-and-set loop.
+ */
+public class StripedDoubleAccumulator implements DoubleConsumer {
+
+  private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final int STRIDE = 16;
+
+  private final DoubleBinaryOperator op;
+  private final double identity;
+  private final int mask;
+  private final long[] cells;
+
+  private StripedDoubleAccumulator(DoubleBinaryOperator op, double identity) {
+    this.op = op;
+    this.identity = identity;
+    int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+    this.mask = count - 1;
+    this.cells = new long[(count + 1) * STRIDE];
+    reset();
+  }
+
+  public static StripedDoubleAccumulator sum() {
+    return new StripedDoubleAccumulator(Double::sum, 0.0);
+  }
+
+  public static StripedDoubleAccumulator min() {
+    return new StripedDoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+  }
+
+  public static StripedDoubleAccumulator max() {
+    return new StripedDoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+  }
+
+  public static StripedDoubleAccumulator of(DoubleBinaryOperator op, double identity) {
+    return new StripedDoubleAccumulator(op, identity);
+  }
+
+  @Override
+  public void accept(double value) {
+    for (int cell = StripedLongAccumulator.probe();; cell = StripedLongAccumulator.advanceProbe()) {
+      int index = index(cell);
+      long current = (long) CELLS.getVolatile(cells, index);
+      long updated = Double.doubleToRawLongBits(op.applyAsDouble(Double.longBitsToDouble(current), value));
+      if (updated == current || CELLS.compareAndSet(cells, index, current, updated)) {
+        return;
+      }
+    }
+  }
+
+  public double get() {
+    double result = identity;
+    for (int cell = 0; cell <= mask; cell++) {
+      result = op.applyAsDouble(result, Double.longBitsToDouble((long) CELLS.getVolatile(cells, index(cell))));
+    }
+    return result;
+  }
+
+  /**
+   * Not atomic with respect to concurrent updates, call it between pipelines.
+   */
+  public void reset() {
+    long bits = Double.doubleToRawLongBits(identity);
+    for (int cell = 0; cell <= mask; cell++) {
+      CELLS.setVolatile(cells, index(cell), bits);
+    }
+  }
+
+  private int index(int cell) {
+    return ((cell & mask) + 1) * STRIDE;
+  }
+
+}
@@ -0,0 +1,128 @@
+package com.excella.modernjava.parallelstreams;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+
+/**
+ * Thread safe replacement for {@link ParallelStreams.Accumulator}, usable as the sink of a parallel
+ * forEach. Like {@link java.util.concurrent.atomic.LongAdder} every thread updates one of several
+ * cells picked by its probe, a per-thread hash seeded from its id and moved on whenever the thread
+ * loses a race on its cell, and the cells are only folded together on {@link #get()}. Each cell gets
+ * its own 128 byte stride of the backing array so two cells never share a cache line.
+ *
+ * The operator must be associative and commutative, with {@code identity} as its neutral element.
+ */
+public class StripedLongAccumulator implements LongConsumer {
+
+  private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final int STRIDE = 16;
+  private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[] {seed()});
+
+  private final LongBinaryOperator op;
+  private final long identity;
+  private final boolean isSum;
+  private final int mask;
+  private final long[] cells;
+
+  private StripedLongAccumulator(LongBinaryOperator op, long identity, boolean isSum) {
+    this.op = op;
+    this.identity = identity;
+    this.isSum = isSum;
+    int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+    this.mask = count - 1;
+    // one extra stride in front so the first cell doesn't share a line with the array header
+    this.cells = new long[(count + 1) * STRIDE];
+    reset();
+  }
+
+  public static StripedLongAccumulator sum() {
+    return new StripedLongAccumulator(Long::sum, 0L, true);
+  }
+
+  public static StripedLongAccumulator min() {
+    return new StripedLongAccumulator(Math::min, Long.MAX_VALUE, false);
+  }
+
+  public static StripedLongAccumulator max() {
+    return new StripedLongAccumulator(Math::max, Long.MIN_VALUE, false);
+  }
+
+  public static StripedLongAccumulator of(LongBinaryOperator op, long identity) {
+    return new StripedLongAccumulator(op, identity, false);
+  }
+
+  @Override
+  public void accept(long value) {
+    int cell = probe();
+    if (isSum) {
+      int index = index(cell);
+      long current = (long) CELLS.getVolatile(cells, index);
+      if (!CELLS.compareAndSet(cells, index, current, current + value)) {
+        // another thread shares the cell, move this one elsewhere for this and later updates
+        CELLS.getAndAdd(cells, index(advanceProbe()), value);
+      }
+      return;
+    }
+    // on a lost race move to another cell instead of spinning on the contended one
+    for (;; cell = advanceProbe()) {
+      int index = index(cell);
+      long current = (long) CELLS.getVolatile(cells, index);
+      long updated = op.applyAsLong(current, value);
+      if (updated == current || CELLS.compareAndSet(cells, index, current, updated)) {
+        return;
+      }
+    }
+  }
+
+  public long get() {
+    long result = identity;
+    for (int cell = 0; cell <= mask; cell++) {
+      result = op.applyAsLong(result, (long) CELLS.getVolatile(cells, index(cell)));
+    }
+    return result;
+  }
+
+  /**
+   * Not atomic with respect to concurrent updates, call it between pipelines.
+   */
+  public void reset() {
+    for (int cell = 0; cell <= mask; cell++) {
+      CELLS.setVolatile(cells, index(cell), identity);
+    }
+  }
+
+  private int index(int cell) {
+    return ((cell & mask) + 1) * STRIDE;
+  }
+
+  static int probe() {
+    return PROBE.get()[0];
+  }
+
+  /**
+   * Rehashes the calling thread's probe after it lost a race on its cell, the xorshift step
+   * ThreadLocalRandom uses for LongAdder.
+   */
+  static int advanceProbe() {
+    int[] probe = PROBE.get();
+    int p = probe[0];
+    p ^= p << 13;
+    p ^= p >>> 17;
+    p ^= p << 5;
+    probe[0] = p;
+    return p;
+  }
+
+  private static int seed() {
+    long id = Thread.currentThread().getId();
+    // Murmur3 finalizer, spreads consecutive worker thread ids over the cells
+    id = (id ^ (id >>> 33)) * 0xff51afd7ed558ccdL;
+    id = (id ^ (id >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    int seed = (int) (id ^ (id >>> 33));
+    // xorshift never leaves 0
+    return seed == 0 ? 1 : seed;
+  }
+
+}
@@ -0,0 +1,145 @@
+package com.excella.modernjava.shop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread pool that sizes itself with the formula of chapter 16.3.4, Nthreads = Ncpu * U * (1 + W/C). Every task
+ * is timed, wall clock against the CPU time of its thread, and the W/C ratio of recent tasks (an exponential moving
+ * average) sets the pool size, within the given bounds. Shop calls that sleep most of the time push the pool up,
+ * CPU-bound work brings it back down towards the number of cores. The size is checked again after
+ * ADJUST_EVERY_TASKS tasks or ADJUST_INTERVAL_NANOS, whichever comes first, on the thread that crossed the mark.
+ */
+public class AdaptiveExecutor implements Executor {
+    static final int ADJUST_EVERY_TASKS = 32;
+    static final long ADJUST_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /// Weight of the latest window in the W/C moving average
+    static final double SMOOTHING = 0.3;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ThreadPoolExecutor pool;
+    private final int minThreads;
+    private final int maxThreads;
+    private final double targetUtilization;
+    private final int cpus = Runtime.getRuntime().availableProcessors();
+
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder tasksSinceAdjust = new LongAdder();
+    private final AtomicLong lastAdjust = new AtomicLong(System.nanoTime());
+    private volatile double waitComputeRatio;
+    private volatile int targetSize;
+
+    public AdaptiveExecutor(String name, int minThreads, int maxThreads, double targetUtilization) {
+        if (minThreads < 1 || maxThreads < minThreads || targetUtilization <= 0 || targetUtilization > 1) {
+            throw new IllegalArgumentException("Need 1 <= minThreads <= maxThreads and 0 < targetUtilization <= 1");
+        }
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.targetUtilization = targetUtilization;
+        this.targetSize = minThreads;
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(minThreads, minThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                (Runnable r) -> {
+                    Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pool.execute(() -> {
+            long start = System.nanoTime();
+            long cpuStart = THREADS.getCurrentThreadCpuTime();
+            try {
+                task.run();
+            } finally {
+                long wall = System.nanoTime() - start;
+                long cpu = cpuStart < 0 ? wall : THREADS.getCurrentThreadCpuTime() - cpuStart;
+                cpuNanos.add(cpu);
+                waitNanos.add(Math.max(0, wall - cpu));
+                tasksSinceAdjust.increment();
+                maybeAdjust();
+            }
+        });
+        maybeAdjust();
+    }
+
+    private void maybeAdjust() {
+        long last = lastAdjust.get();
+        long now = System.nanoTime();
+        boolean due = now - last >= ADJUST_INTERVAL_NANOS || tasksSinceAdjust.sum() >= ADJUST_EVERY_TASKS;
+        if (due && lastAdjust.compareAndSet(last, now)) {
+            adjust();
+        }
+    }
+
+    private void adjust() {
+        long tasks = tasksSinceAdjust.sumThenReset();
+        long waited = waitNanos.sumThenReset();
+        long computed = cpuNanos.sumThenReset();
+        if (tasks == 0) {
+            return;
+        }
+        // a task that hardly touched the CPU still counts as a microsecond, so W/C stays finite
+        double ratio = (double) waited / Math.max(computed, TimeUnit.MICROSECONDS.toNanos(1) * tasks);
+        double smoothed = waitComputeRatio == 0 ? ratio : SMOOTHING * ratio + (1 - SMOOTHING) * waitComputeRatio;
+        waitComputeRatio = smoothed;
+        resize((int) Math.ceil(cpus * targetUtilization * (1 + smoothed)));
+    }
+
+    private synchronized void resize(int size) {
+        int bounded = Math.max(minThreads, Math.min(maxThreads, size));
+        targetSize = bounded;
+        // the core size may never exceed the maximum, so the order depends on the direction
+        if (bounded > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(bounded);
+            pool.setCorePoolSize(bounded);
+        } else if (bounded < pool.getMaximumPoolSize()) {
+            pool.setCorePoolSize(bounded);
+            pool.setMaximumPoolSize(bounded);
+        }
+    }
+
+    /// Number of threads the sizing model currently asks for
+    public int getTargetSize() {
+        return targetSize;
+    }
+
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    /// Smoothed ratio of waiting time to CPU time per task, the W/C of the sizing model
+    public double getWaitComputeRatio() {
+        return waitComputeRatio;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdaptiveExecutor: target=%d threads=%d active=%d queued=%d W/C=%.1f",
+                getTargetSize(), getPoolSize(), getActiveCount(), getQueueDepth(), getWaitComputeRatio());
+    }
+}
@@ -1,5 +1,7 @@
 package com.excella.modernjava.shop;
 
+import com.excella.modernjava.common.perf.PerfHarness;
+
 import java.util.concurrent.Future;
 
 public class AsyncShopClient {
@@ -20,6 +22,20 @@ public class AsyncShopClient {
         }
         long retrievalTime = ((System.nanoTime() - start) / 1_000_000);
         System.out.println("Price returned after " + retrievalTime + " msecs");
+
+        // Same two numbers over a few runs, every call sleeps for a second so keep the counts low
+        PerfHarness perf = new PerfHarness(1, 5, 0.1);
+        perf.measure("getPrice invocation", () -> shop.getPrice("my favorite product"));
+        perf.measure("getPrice round trip", () -> join(shop.getPrice("my favorite product")));
+        perf.printComparison();
+    }
+
+    private static double join(Future<Double> futurePrice) {
+        try {
+            return futurePrice.get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
 }
@@ -1,9 +1,21 @@
 package com.excella.modernjava.shop;
 
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 
@@ -13,12 +25,46 @@ public class BestPriceFinder {
             new Shop("MyFavoriteShop"),
             new Shop("BuyItAll"));
 
-    private final Executor executor = Executors.newFixedThreadPool(shops.size(), (Runnable r) -> {
-        Thread t = new Thread(r);
-        t.setDaemon(true);
-        return t;
+    /// The book caps the pool at 100 threads; within that the size follows the measured wait/compute ratio
+    /// instead of the number of shops, which breaks down once callers outnumber shops or shops number thousands
+    static final int MAX_THREADS = 100;
+
+    private final AdaptiveExecutor executor = new AdaptiveExecutor("best-price", shops.size(), MAX_THREADS, 1.0);
+
+    /// Hedges, timeouts and batch flushes; the adaptive pool only takes the blocking shop calls, where a timer
+    /// would wait behind the one second calls it is meant to bound
+    private final ExecutorService auxiliary = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "best-price-aux-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
     });
 
+    static final Duration SHOP_TIMEOUT = Duration.ofMillis(1500);
+
+    private final List<HedgedShop> hedgedShops = shops.stream()
+            .map(shop -> new HedgedShop(shop, executor, auxiliary, SHOP_TIMEOUT))
+            .collect(toList());
+
+    private final List<ShopGuard> shopGuards = shops.stream()
+            .map(shop -> ShopGuard.withDefaults(shop.getName()))
+            .collect(toList());
+
+    static final Duration QUOTE_TTL = Duration.ofSeconds(5);
+
+    private final QuoteCache quoteCache = new QuoteCache(QUOTE_TTL, 10_000);
+
+    private final DiscountBatcher<String> discountBatcher =
+            new DiscountBatcher<>(64, Duration.ofMillis(10), auxiliary, Discount::applyDiscounts);
+
+    /// Numeric discounts for registry searches, in larger batches since those fan out to thousands of shops
+    private final DiscountBatcher<Quote> quoteBatcher =
+            new DiscountBatcher<>(1024, Duration.ofMillis(10), auxiliary, Discount::discountedAll);
+
     public List<String> findPrices(String product) {
 
         /// Exercise 16.3.2:
@@ -52,6 +98,14 @@ public class BestPriceFinder {
                 .collect(toList());
     }
 
+    /// findPricesSequential with one bulk discount call: 4 seconds for the shops plus 1 for all the discounts
+    public List<String> findPricesSequentialBatched(String product) {
+        return Discount.applyDiscounts(shops.stream()
+                .map(shop -> shop.getPrice(product))
+                .map(Quote::parse)
+                .collect(toList()));
+    }
+
     /*  ## 16.4.3 Composing synchronous and asynchronous operations
 
      */
@@ -69,4 +123,159 @@ public class BestPriceFinder {
                 .collect(toList());
     }
 
+    /*  ## 16.5 Reacting to a CompletableFuture completion
+        Same pipeline as findPricesAsync, but nothing is joined: each future completes on its own,
+        so a caller can react to the fastest shops instead of waiting for the slowest one
+     */
+    public Stream<CompletableFuture<String>> findPricesStream(String product) {
+        return shops.stream()
+                .map(shop -> CompletableFuture.supplyAsync(
+                        () -> shop.getPrice(product), executor))
+                .map(future -> future.thenApply(Quote::parse))
+                .map(future -> future.thenCompose(quote ->
+                        CompletableFuture.supplyAsync(
+                                () -> Discount.applyDiscount(quote), executor)));
+    }
+
+    /// Prices in completion order as a java.util.concurrent.Flow.Publisher (chapter 17).
+    /// Cold: the shops are only queried once a subscriber arrives, and each subscriber gets its own query.
+    public Flow.Publisher<String> findPricesPublisher(String product) {
+        return subscriber -> {
+            SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
+            publisher.subscribe(subscriber);
+            CompletableFuture<?>[] futures = findPricesStream(product)
+                    .map(future -> future.thenAccept(publisher::submit))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).whenComplete((done, error) -> {
+                if (error != null) {
+                    publisher.closeExceptionally(error);
+                } else {
+                    publisher.close();
+                }
+            });
+        };
+    }
+
+    /// Prices in completion order as an RxJava Flowable; merge emits whichever future completes first
+    public Flowable<String> findPricesFlowable(String product) {
+        return Flowable.defer(() -> Flowable.merge(findPricesStream(product)
+                .map(Flowable::fromCompletionStage)
+                .collect(toList())));
+    }
+
+    /// Returns as soon as the n fastest shops have answered; take(n) cancels the rest of the merge
+    public List<String> findFirstPrices(String product, int n) {
+        return findPricesFlowable(product)
+                .take(n)
+                .toList()
+                .blockingGet();
+    }
+
+    /// Cheapest discounted quote among the shops that answered within the deadline, empty if none did
+    public Optional<Quote> findBestPriceWithin(String product, Duration deadline) {
+        Flowable<Quote> quotes = Flowable.defer(() -> Flowable.merge(shops.stream()
+                .map(shop -> CompletableFuture.supplyAsync(
+                        () -> shop.getPrice(product), executor))
+                .map(future -> future.thenApply(Quote::parse))
+                .map(future -> future.thenCompose(quote ->
+                        CompletableFuture.supplyAsync(
+                                () -> Discount.discounted(quote), executor)))
+                .map(Flowable::fromCompletionStage)
+                .collect(toList())));
+        return Optional.ofNullable(quotes
+                .take(deadline.toNanos(), TimeUnit.NANOSECONDS)
+                .reduce((a, b) -> a.getPrice() <= b.getPrice() ? a : b)
+                .blockingGet());
+    }
+
+    /// findPricesAsync with per-shop timeouts, fallbacks and hedged requests; shops with no answer and no
+    /// fallback are left out instead of failing the whole result
+    public List<String> findPricesHedged(String product) {
+        List<CompletableFuture<String>> priceFutures = hedgedShops.stream()
+                .map(shop -> shop.getPrice(product))
+                .map(future -> future.thenApply(Quote::parse))
+                .map(future -> future.thenCompose(quote ->
+                        CompletableFuture.supplyAsync(
+                                () -> Discount.applyDiscount(quote), executor)))
+                .map(future -> future.exceptionally(error -> null))
+                .collect(toList());
+        return priceFutures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
+    public List<HedgedShop> getHedgedShops() {
+        return hedgedShops;
+    }
+
+    /// findPricesHedged behind the quote cache: repeated and concurrent requests for a product within the TTL
+    /// share one call per shop, only the discount is applied per request
+    public List<String> findPricesCached(String product) {
+        List<CompletableFuture<String>> priceFutures = hedgedShops.stream()
+                .map(shop -> quoteCache.get(shop.getShop().getName(), product, () -> shop.getPrice(product)))
+                .map(future -> future.thenApply(Quote::parse))
+                .map(future -> future.thenCompose(quote ->
+                        CompletableFuture.supplyAsync(
+                                () -> Discount.applyDiscount(quote), executor)))
+                .map(future -> future.exceptionally(error -> null))
+                .collect(toList());
+        return priceFutures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
+    public QuoteCache getQuoteCache() {
+        return quoteCache;
+    }
+
+    /// findPricesAsync with discounts going through the batcher, so concurrent requests share discount calls
+    /// and no thread is held per in-flight discount
+    public List<String> findPricesBatched(String product) {
+        List<CompletableFuture<String>> priceFutures = shops.stream()
+                .map(shop -> CompletableFuture.supplyAsync(
+                        () -> shop.getPrice(product), executor))
+                .map(future -> future.thenApply(Quote::parse))
+                .map(future -> future.thenCompose(discountBatcher::applyDiscount))
+                .collect(toList());
+        return priceFutures.stream()
+                .map(CompletableFuture::join)
+                .collect(toList());
+    }
+
+    public DiscountBatcher<String> getDiscountBatcher() {
+        return discountBatcher;
+    }
+
+    /// findPricesHedged with every shop behind its guard: a shop that is throttled, saturated or tripped is
+    /// skipped at once, so a single bad shop can't take the threads the healthy ones need
+    public List<String> findPricesGuarded(String product) {
+        List<CompletableFuture<String>> priceFutures = new ArrayList<>(hedgedShops.size());
+        for (int i = 0; i < hedgedShops.size(); i++) {
+            HedgedShop shop = hedgedShops.get(i);
+            priceFutures.add(shopGuards.get(i).call(() -> shop.getPrice(product))
+                    .thenApply(Quote::parse)
+                    .thenCompose(quote -> CompletableFuture.supplyAsync(
+                            () -> Discount.applyDiscount(quote), executor))
+                    .exceptionally(error -> null));
+        }
+        return priceFutures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
+    /// Cheapest discounted quote across every shop of the registry, with at most maxInFlight shop calls at a time
+    public BestPriceSearch searchBestPrice(ShopRegistry registry, String product, int maxInFlight) {
+        return new BestPriceSearch(registry, product, quoteBatcher).start(maxInFlight);
+    }
+
+    public List<ShopGuard> getShopGuards() {
+        return shopGuards;
+    }
+
+    public AdaptiveExecutor getExecutor() {
+        return executor;
+    }
 }
@@ -1,5 +1,10 @@
 package com.excella.modernjava.shop;
 
+import com.excella.modernjava.common.perf.PerfHarness;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 public class BestPriceFinderClient {
 
     private static BestPriceFinder bestPriceFinder = new BestPriceFinder();
@@ -9,5 +14,40 @@ public class BestPriceFinderClient {
         System.out.println("\n\nfindPrices: " + bestPriceFinder.findPrices("myPhone27S"));
         long duration = (System.nanoTime() - start) / 1_000_000;
         System.out.println("Done in " + duration + " msecs");
+
+        start = System.nanoTime();
+        long streamStart = start;
+        CompletableFuture<?>[] futures = bestPriceFinder.findPricesStream("myPhone27S")
+                .map(f -> f.thenAccept(s -> System.out.println(
+                        s + " (done in " + ((System.nanoTime() - streamStart) / 1_000_000) + " msecs)")))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+        System.out.println("All shops have now responded in " + ((System.nanoTime() - start) / 1_000_000) + " msecs");
+
+        System.out.println("First 2 prices: " + bestPriceFinder.findFirstPrices("myPhone27S", 2));
+        bestPriceFinder.findBestPriceWithin("myPhone27S", Duration.ofMillis(2500))
+                .ifPresentOrElse(q -> System.out.println("Best price within 2.5s: " + q.getShopName() + " " + Prices.toString(q.getPrice())),
+                        () -> System.out.println("No price within 2.5s"));
+
+        ShopRegistry registry = ShopRegistry.of(2_000, 8, 32);
+        long searchStart = System.nanoTime();
+        BestPriceSearch search = bestPriceFinder.searchBestPrice(registry, "myPhone27S", 256);
+        search.getResult().join().ifPresent(q -> System.out.println("Best of " + search.getShopCount() + " shops: "
+                + q.getShopName() + " " + Prices.toString(q.getPrice()) + " in "
+                + ((System.nanoTime() - searchStart) / 1_000_000) + " msecs, " + search.getFailed() + " failed"));
+
+        PerfHarness perf = new PerfHarness(1, 5, 0.1);
+        perf.measure("findPrices", bestPriceFinder::findPrices, "myPhone27S");
+        perf.measure("findPricesAsync", bestPriceFinder::findPricesAsync, "myPhone27S");
+        perf.measure("findPricesHedged", bestPriceFinder::findPricesHedged, "myPhone27S");
+        perf.measure("findPricesCached", bestPriceFinder::findPricesCached, "myPhone27S");
+        perf.measure("findPricesBatched", bestPriceFinder::findPricesBatched, "myPhone27S");
+        perf.measure("findPricesGuarded", bestPriceFinder::findPricesGuarded, "myPhone27S");
+        perf.printComparison();
+        bestPriceFinder.getHedgedShops().forEach(System.out::println);
+        System.out.println(bestPriceFinder.getQuoteCache());
+        System.out.println(bestPriceFinder.getDiscountBatcher());
+        System.out.println(bestPriceFinder.getExecutor());
+        bestPriceFinder.getShopGuards().forEach(System.out::println);
     }
 }
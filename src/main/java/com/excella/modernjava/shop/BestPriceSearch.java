@@ -0,0 +1,124 @@
+package com.excella.modernjava.shop;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One best-price query over a ShopRegistry. At most maxInFlight shop calls are outstanding at any time: each call
+ * that completes starts the next shop, so the request costs maxInFlight futures, not one per shop. Discounted quotes
+ * are folded into the running best as they arrive, which can be read with getBest() while the search runs.
+ */
+public class BestPriceSearch {
+    private final ShopRegistry registry;
+    private final String product;
+    private final DiscountBatcher<Quote> discounts;
+    private final int shopCount;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final AtomicReference<Quote> best = new AtomicReference<>();
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final CompletableFuture<Optional<Quote>> result = new CompletableFuture<>();
+
+    BestPriceSearch(ShopRegistry registry, String product, DiscountBatcher<Quote> discounts) {
+        this.registry = registry;
+        this.product = product;
+        this.discounts = discounts;
+        this.shopCount = registry.size();
+        this.remaining = new AtomicInteger(shopCount);
+    }
+
+    BestPriceSearch start(int maxInFlight) {
+        // with no call in flight nothing would ever start the next shop and the result would never complete
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Need at least one shop call in flight, got " + maxInFlight);
+        }
+        if (shopCount == 0) {
+            result.complete(Optional.empty());
+        }
+        for (int i = 0; i < Math.min(maxInFlight, shopCount); i++) {
+            callNext();
+        }
+        return this;
+    }
+
+    private void callNext() {
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= shopCount) {
+                return;
+            }
+            Shop shop = registry.get(index);
+            inFlight.incrementAndGet();
+            try {
+                CompletableFuture.supplyAsync(() -> Quote.parse(shop.getPrice(product)), registry.laneOf(index))
+                        .whenComplete((quote, error) -> onPrice(quote, error));
+                return;
+            } catch (RejectedExecutionException e) {
+                // a lane that refuses work (shut down) fails its shop, the slot moves on to the next one
+                inFlight.decrementAndGet();
+                failed.increment();
+                done();
+            }
+        }
+    }
+
+    private void onPrice(Quote quote, Throwable error) {
+        inFlight.decrementAndGet();
+        // the slot is free once the shop answered, the discount is batched separately
+        callNext();
+        if (error != null) {
+            failed.increment();
+            done();
+        } else {
+            discounts.applyDiscount(quote).whenComplete((discounted, discountError) -> {
+                if (discountError != null) {
+                    failed.increment();
+                } else {
+                    answered.increment();
+                    best.accumulateAndGet(discounted,
+                            (a, b) -> a == null || b.getPrice() < a.getPrice() ? b : a);
+                }
+                done();
+            });
+        }
+    }
+
+    private void done() {
+        if (remaining.decrementAndGet() == 0) {
+            result.complete(Optional.ofNullable(best.get()));
+        }
+    }
+
+    /// Completes with the cheapest discounted quote once every shop answered or failed
+    public CompletableFuture<Optional<Quote>> getResult() {
+        return result;
+    }
+
+    /// Cheapest discounted quote so far
+    public Optional<Quote> getBest() {
+        return Optional.ofNullable(best.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAnswered() {
+        return answered.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public int getShopCount() {
+        return shopCount;
+    }
+}
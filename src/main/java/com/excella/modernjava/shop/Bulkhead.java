@@ -0,0 +1,46 @@
+package com.excella.modernjava.shop;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the calls in flight to one shop, so a shop that hangs can hold at most maxConcurrent threads instead of the
+ * whole pool. A call over the limit is turned away at once rather than queued.
+ */
+public class Bulkhead {
+    private final int maxConcurrent;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConcurrent) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
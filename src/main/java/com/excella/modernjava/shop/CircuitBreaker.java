@@ -0,0 +1,146 @@
+package com.excella.modernjava.shop;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stops calling a shop whose recent calls mostly fail or are slow. The last windowSize outcomes are kept; once at
+ * least minimumCalls are in, an error rate or slow call rate at or above its threshold opens the breaker and calls
+ * are refused for openDuration. After that a single trial call is let through (half open): if it succeeds in time
+ * the breaker closes with an empty window, otherwise it opens again. Every call gets a permit naming the state
+ * it was let through in, and only outcomes from the current one count.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public static final long REJECTED = -1;
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    private volatile State state = State.CLOSED;
+    /// Bumped on every state change; a permit carries the generation it was issued in
+    private volatile long generation;
+    private boolean trialTaken;
+    private volatile long openedAt;
+
+    /// Ring of the last outcomes, guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timesOpened = new LongAdder();
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration slowCall, double slowCallRateThreshold, Duration openDuration) {
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCall.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /// Returns a permit to hand back to record, or REJECTED when the call may not go through
+    public long tryAcquire() {
+        // generation first: if the state changes in between, the permit is already stale and its outcome ignored
+        long permit = generation;
+        if (state == State.CLOSED) {
+            return permit;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                generation++;
+                trialTaken = false;
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN && !trialTaken) {
+                trialTaken = true;
+                return generation;
+            }
+        }
+        rejected.increment();
+        return REJECTED;
+    }
+
+    /// Outcomes of permits issued before the last state change are dropped, so calls let through before the breaker
+    /// opened can't decide the half-open trial or count towards the window of the next closed period
+    public synchronized void record(long permit, boolean success, long nanos) {
+        if (permit != generation) {
+            return;
+        }
+        boolean tooSlow = nanos > slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (success && !tooSlow) {
+                close();
+            } else {
+                open();
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (recorded == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = !success;
+        slow[next] = tooSlow;
+        failures += success ? 0 : 1;
+        slowCalls += tooSlow ? 1 : 0;
+        next = (next + 1) % failed.length;
+        if (recorded >= minimumCalls
+                && (failures >= failureRateThreshold * recorded || slowCalls >= slowCallRateThreshold * recorded)) {
+            open();
+        }
+    }
+
+    /// openedAt is written before the state, so tryAcquire never sees OPEN with a stale timestamp
+    private void open() {
+        openedAt = System.nanoTime();
+        generation++;
+        state = State.OPEN;
+        timesOpened.increment();
+    }
+
+    private void close() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+        generation++;
+        state = State.CLOSED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : (double) slowCalls / recorded;
+    }
+
+    /// Calls refused while open, or while half open with the trial call still running
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getTimesOpened() {
+        return timesOpened.sum();
+    }
+}
@@ -1,7 +1,9 @@
 package com.excella.modernjava.shop;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.excella.modernjava.shop.FakeLongRunningOp.delay;
-import static com.excella.modernjava.shop.Util.format;
 
 public class Discount {
     /// ## 16.4 to simulate discount codes & applying
@@ -17,11 +19,44 @@ public class Discount {
     }
 
     public static String applyDiscount(Quote quote) {
-        return quote.getShopName() + " price is " + Discount.apply(quote.getPrice(), quote.getDiscountCode());
+        return describe(quote.getShopName(), Discount.apply(quote.getPrice(), quote.getDiscountCode()));
+    }
+
+    /// Bulk version of applyDiscount: the discount service latency is paid once for the whole list
+    public static List<String> applyDiscounts(List<Quote> quotes) {
+        delay();
+        List<String> prices = new ArrayList<>(quotes.size());
+        for (Quote quote : quotes) {
+            prices.add(describe(quote.getShopName(), discount(quote.getPrice(), quote.getDiscountCode())));
+        }
+        return prices;
     }
 
-    private static double apply(double price, Code code) {
+    /// Bulk version of discounted
+    public static List<Quote> discountedAll(List<Quote> quotes) {
         delay();
-        return format(price * (100 - code.percentage) / 100);
+        List<Quote> discounted = new ArrayList<>(quotes.size());
+        for (Quote quote : quotes) {
+            discounted.add(new Quote(quote.getShopName(), discount(quote.getPrice(), quote.getDiscountCode()), Code.NONE));
+        }
+        return discounted;
+    }
+
+    /// Same as applyDiscount, but keeps the discounted price numeric so callers can compare quotes
+    public static Quote discounted(Quote quote) {
+        return new Quote(quote.getShopName(), Discount.apply(quote.getPrice(), quote.getDiscountCode()), Code.NONE);
+    }
+
+    private static long apply(long price, Code code) {
+        delay();
+        return discount(price, code);
+    }
+
+    private static long discount(long price, Code code) {
+        return Prices.percentOff(price, code.percentage);
+    }
+
+    private static String describe(String shopName, long price) {
+        return Prices.append(new StringBuilder(shopName).append(" price is "), price).toString();
     }
 }
@@ -0,0 +1,113 @@
+package com.excella.modernjava.shop;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Front-end for the discount service that groups quotes into batches: a batch is sent through a bulk call such as
+ * Discount.applyDiscounts as soon as it holds maxBatchSize quotes, or when the window has passed since its
+ * first quote arrived. The service latency is then paid once per batch instead of once per quote, and each
+ * caller still gets its own future back.
+ */
+public class DiscountBatcher<R> {
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Executor executor;
+    private final Function<List<Quote>, List<R>> bulkDiscount;
+
+    private List<Pending<R>> pending = new ArrayList<>();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder quotes = new LongAdder();
+
+    /// bulkDiscount must return one result per quote, in the same order
+    public DiscountBatcher(int maxBatchSize, Duration window, Executor executor,
+                           Function<List<Quote>, List<R>> bulkDiscount) {
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.executor = executor;
+        this.bulkDiscount = bulkDiscount;
+    }
+
+    public CompletableFuture<R> applyDiscount(Quote quote) {
+        Pending<R> request = new Pending<>(quote);
+        List<Pending<R>> full = null;
+        synchronized (this) {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = new ArrayList<>();
+            } else if (pending.size() == 1) {
+                List<Pending<R>> batch = pending;
+                CompletableFuture.delayedExecutor(windowNanos, TimeUnit.NANOSECONDS, executor)
+                        .execute(() -> flush(batch));
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return request.future;
+    }
+
+    /// Called when a batch's window closes; does nothing if the batch was already sent because it filled up
+    private void flush(List<Pending<R>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        send(batch);
+    }
+
+    private void send(List<Pending<R>> batch) {
+        batches.increment();
+        quotes.add(batch.size());
+        executor.execute(() -> {
+            try {
+                List<R> prices = bulkDiscount.apply(batch.stream().map(p -> p.quote).collect(toList()));
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).future.complete(prices.get(i));
+                }
+            } catch (Throwable error) {
+                batch.forEach(p -> p.future.completeExceptionally(error));
+            }
+        });
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getQuotes() {
+        return quotes.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long batches = getBatches();
+        return batches == 0 ? 0 : (double) getQuotes() / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DiscountBatcher: batches=%d quotes=%d avgBatch=%.1f",
+                getBatches(), getQuotes(), getAverageBatchSize());
+    }
+
+    private static final class Pending<R> {
+        private final Quote quote;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Pending(Quote quote) {
+            this.quote = quote;
+        }
+    }
+}
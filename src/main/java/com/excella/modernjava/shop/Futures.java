@@ -0,0 +1,161 @@
+package com.excella.modernjava.shop;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Combinators over lists of CompletableFutures that never block a thread: every one is built from completion
+ * callbacks, so while the inputs are pending no thread is parked in join() or get() on their behalf. Compare
+ * Util.sequence, which holds a common pool worker in join() for as long as the slowest future takes.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /// All results in input order; fails as soon as any future fails, without waiting for the others
+    public static <T> CompletableFuture<List<T>> sequence(List<? extends CompletableFuture<T>> futures) {
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        AtomicReferenceArray<T> values = new AtomicReferenceArray<>(futures.size());
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        if (futures.isEmpty()) {
+            result.complete(List.of());
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            int index = i;
+            futures.get(i).whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    values.set(index, value);
+                    if (remaining.decrementAndGet() == 0) {
+                        result.complete(toList(values));
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /// The first result to arrive; fails only once every future has failed, with the other errors suppressed
+    public static <T> CompletableFuture<T> firstSuccessful(List<? extends CompletableFuture<T>> futures) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            result.completeExceptionally(new NoSuchElementException("No futures to wait for"));
+        }
+        Throwable[] errors = new Throwable[futures.size()];
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < futures.size(); i++) {
+            int index = i;
+            futures.get(i).whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    errors[index] = error;
+                    // the increment publishes errors[index] to whoever sees the final count
+                    if (failed.incrementAndGet() == errors.length) {
+                        result.completeExceptionally(allFailed(errors));
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /// The first k results in completion order; fails as soon as so many futures failed that k can't be reached
+    public static <T> CompletableFuture<List<T>> quorum(List<? extends CompletableFuture<T>> futures, int k) {
+        if (k < 0 || k > futures.size()) {
+            throw new IllegalArgumentException("Quorum of " + k + " out of " + futures.size() + " futures");
+        }
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        AtomicReferenceArray<T> values = new AtomicReferenceArray<>(k);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger filled = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int tolerated = futures.size() - k;
+        if (k == 0) {
+            result.complete(List.of());
+        }
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    int slot = succeeded.getAndIncrement();
+                    if (slot < k) {
+                        values.set(slot, value);
+                        // slots can be filled out of order, so count the writes rather than the claims
+                        if (filled.incrementAndGet() == k) {
+                            result.complete(toList(values));
+                        }
+                    }
+                } else if (failed.incrementAndGet() == tolerated + 1) {
+                    result.completeExceptionally(new IllegalStateException(
+                            "Quorum of " + k + " out of " + futures.size() + " can no longer be reached", error));
+                }
+            });
+        }
+        return result;
+    }
+
+    /// Results, in input order, of the futures that succeeded before the deadline; failed and late ones are
+    /// left out. Completes early once every future is done.
+    public static <T> CompletableFuture<List<T>> allWithinDeadline(List<? extends CompletableFuture<T>> futures,
+                                                                   Duration deadline) {
+        CompletableFuture<List<T>> result = new CompletableFuture<>();
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+        all.whenComplete((done, error) -> result.complete(completedValues(futures)));
+        CompletableFuture.delayedExecutor(deadline.toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> result.complete(completedValues(futures)));
+        return result;
+    }
+
+    /// Like CompletableFuture.anyOf, the first future to complete wins whether it succeeded or failed, and then
+    /// every other future is cancelled. Cancelling skips the stages still to run after them; a task already
+    /// running in supplyAsync isn't interrupted.
+    public static <T> CompletableFuture<T> raceWithCancellation(List<? extends CompletableFuture<T>> futures) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            result.completeExceptionally(new NoSuchElementException("No futures to race"));
+        }
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, error) -> {
+                boolean won = error == null ? result.complete(value) : result.completeExceptionally(error);
+                if (won) {
+                    futures.forEach(other -> other.cancel(false));
+                }
+            });
+        }
+        return result;
+    }
+
+    private static <T> List<T> toList(AtomicReferenceArray<T> values) {
+        List<T> list = new ArrayList<>(values.length());
+        for (int i = 0; i < values.length(); i++) {
+            list.add(values.get(i));
+        }
+        return list;
+    }
+
+    private static <T> List<T> completedValues(List<? extends CompletableFuture<T>> futures) {
+        List<T> values = new ArrayList<>();
+        for (CompletableFuture<T> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                // done and not failed, so join returns at once
+                values.add(future.join());
+            }
+        }
+        return values;
+    }
+
+    private static IllegalStateException allFailed(Throwable[] errors) {
+        IllegalStateException failure = new IllegalStateException("All " + errors.length + " futures failed", errors[0]);
+        Arrays.stream(errors, 1, errors.length).forEach(failure::addSuppressed);
+        return failure;
+    }
+}
@@ -0,0 +1,143 @@
+package com.excella.modernjava.shop;
+
+import com.excella.modernjava.common.perf.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps a Shop so a slow answer can't stall the caller: once the call has taken longer than the shop's
+ * observed p95 latency a duplicate request is fired and whichever answers first wins, and after the timeout
+ * the last price this shop returned for the product is used instead. Only when there's no such fallback does
+ * the future fail with a TimeoutException. The first attempt runs on the given executor; the hedge, the timeout and
+ * the hedged attempt run on hedgeExecutor, so they aren't stuck in a queue behind the very calls they should cut short.
+ */
+public class HedgedShop {
+    /// Below this many samples the p95 means little, so no hedges are sent
+    static final int MIN_SAMPLES = 20;
+
+    private final Shop shop;
+    private final Executor executor;
+    private final Executor hedgeExecutor;
+    private final Duration timeout;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final Map<String, String> lastPrices = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedgesIssued = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public HedgedShop(Shop shop, Executor executor, Executor hedgeExecutor, Duration timeout) {
+        this.shop = shop;
+        this.executor = executor;
+        this.hedgeExecutor = hedgeExecutor;
+        this.timeout = timeout;
+    }
+
+    public CompletableFuture<String> getPrice(String product) {
+        calls.increment();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        attempt(product, result, pending, false);
+
+        long hedgeAfter = hedgeDelayNanos();
+        if (hedgeAfter < timeout.toNanos()) {
+            CompletableFuture.runAsync(() -> {
+                if (!result.isDone()) {
+                    hedgesIssued.increment();
+                    pending.incrementAndGet();
+                    attempt(product, result, pending, true);
+                }
+            }, CompletableFuture.delayedExecutor(hedgeAfter, TimeUnit.NANOSECONDS, hedgeExecutor));
+        }
+
+        CompletableFuture.runAsync(() -> {
+            if (!result.isDone()) {
+                timeouts.increment();
+                fallback(product, result, new TimeoutException(shop.getName() + " did not answer within " + timeout));
+            }
+        }, CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS, hedgeExecutor));
+        return result;
+    }
+
+    /// The losing attempt still runs to the end, Shop.getPrice isn't interruptible, but its answer is dropped
+    private void attempt(String product, CompletableFuture<String> result, AtomicInteger pending, boolean hedge) {
+        long start = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> shop.getPrice(product), hedge ? hedgeExecutor : executor)
+                .whenComplete((price, error) -> {
+                    if (error == null) {
+                        synchronized (latencies) {
+                            latencies.record(System.nanoTime() - start);
+                        }
+                        lastPrices.put(product, price);
+                        if (result.complete(price) && hedge) {
+                            hedgesWon.increment();
+                        }
+                    } else if (pending.decrementAndGet() == 0) {
+                        fallback(product, result, error);
+                    }
+                });
+    }
+
+    private void fallback(String product, CompletableFuture<String> result, Throwable cause) {
+        String price = lastPrices.get(product);
+        if (price == null) {
+            result.completeExceptionally(cause);
+        } else if (result.complete(price)) {
+            fallbacks.increment();
+        }
+    }
+
+    private long hedgeDelayNanos() {
+        synchronized (latencies) {
+            return latencies.count() < MIN_SAMPLES ? Long.MAX_VALUE : latencies.percentile(95);
+        }
+    }
+
+    public Shop getShop() {
+        return shop;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getHedgesIssued() {
+        return hedgesIssued.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /// Observed p95 latency of successful calls in ms, the point at which a hedge is sent
+    public double getP95Millis() {
+        synchronized (latencies) {
+            return latencies.percentile(95) / 1e6;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d hedges=%d won=%d timeouts=%d fallbacks=%d p95=%.1fms",
+                shop.getName(), getCalls(), getHedgesIssued(), getHedgesWon(), getTimeouts(), getFallbacks(),
+                getP95Millis());
+    }
+}
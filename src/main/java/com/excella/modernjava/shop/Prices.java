@@ -0,0 +1,125 @@
+package com.excella.modernjava.shop;
+
+/**
+ * Prices as longs counting minor units (cents), so rounding is integer arithmetic instead of a round trip through
+ * the synchronized DecimalFormat in Util.format. Everything here is a pure function of its arguments: no locks,
+ * and formatting writes into a caller-owned char[] or StringBuilder without allocating.
+ */
+public final class Prices {
+    public static final int DECIMALS = 2;
+    public static final long SCALE = 100;
+    /// '-', 17 integer digits, '.', 2 decimals
+    public static final int MAX_LENGTH = 21;
+    /// Integer digits accepted by parse, so that the value with its decimals can't overflow
+    private static final int MAX_PARSED_DIGITS = 16;
+
+    private Prices() {
+    }
+
+    /// Rounds half up to the nearest minor unit
+    public static long fromDouble(double amount) {
+        return Math.round(amount * SCALE);
+    }
+
+    public static double toDouble(long minorUnits) {
+        return (double) minorUnits / SCALE;
+    }
+
+    /// The price with percentage taken off, rounded half up to the nearest minor unit
+    public static long percentOff(long minorUnits, int percentage) {
+        return Math.floorDiv(minorUnits * (100 - percentage) + 50, 100);
+    }
+
+    /// Writes e.g. "184.70" into dst at offset and returns the index after the last char
+    public static int format(long minorUnits, char[] dst, int offset) {
+        // work on the negative magnitude, which also covers Long.MIN_VALUE
+        long q = minorUnits < 0 ? minorUnits : -minorUnits;
+        int length = DECIMALS + 2 + (minorUnits < 0 ? 1 : 0);
+        for (long whole = q / SCALE; whole <= -10; whole /= 10) {
+            length++;
+        }
+        int end = offset + length;
+        int pos = end;
+        for (int i = 0; i < DECIMALS; i++) {
+            dst[--pos] = (char) ('0' - q % 10);
+            q /= 10;
+        }
+        dst[--pos] = '.';
+        do {
+            dst[--pos] = (char) ('0' - q % 10);
+            q /= 10;
+        } while (q != 0);
+        if (minorUnits < 0) {
+            dst[--pos] = '-';
+        }
+        return end;
+    }
+
+    public static StringBuilder append(StringBuilder sb, long minorUnits) {
+        long whole = minorUnits / SCALE;
+        int cents = (int) Math.abs(minorUnits % SCALE);
+        if (minorUnits < 0) {
+            sb.append('-');
+        }
+        return sb.append(Math.abs(whole))
+                .append('.')
+                .append((char) ('0' + cents / 10))
+                .append((char) ('0' + cents % 10));
+    }
+
+    public static String toString(long minorUnits) {
+        char[] chars = new char[MAX_LENGTH];
+        return new String(chars, 0, format(minorUnits, chars, 0));
+    }
+
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /// Parses a plain decimal like "184.7" from text[start, end); a third decimal rounds half up, later ones are ignored
+    public static long parse(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        int integerDigits = 0;
+        int decimals = -1;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (decimals < 0) {
+                    if (++integerDigits > MAX_PARSED_DIGITS) {
+                        throw malformed(text, start, end);
+                    }
+                    value = value * 10 + (c - '0');
+                } else if (decimals < DECIMALS) {
+                    value = value * 10 + (c - '0');
+                    decimals++;
+                } else if (decimals++ == DECIMALS) {
+                    roundUp = c >= '5';
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                throw malformed(text, start, end);
+            }
+        }
+        if (integerDigits == 0 && decimals <= 0) {
+            throw malformed(text, start, end);
+        }
+        for (int d = Math.max(decimals, 0); d < DECIMALS; d++) {
+            value *= 10;
+        }
+        if (roundUp) {
+            value++;
+        }
+        return negative ? -value : value;
+    }
+
+    private static IllegalArgumentException malformed(CharSequence text, int start, int end) {
+        return new IllegalArgumentException("Malformed price: " + text.subSequence(start, end));
+    }
+}
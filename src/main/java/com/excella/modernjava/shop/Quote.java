@@ -2,11 +2,11 @@ package com.excella.modernjava.shop;
 
 public class Quote {
     private final String shopName;
-    private final double price;
+    private final long price;
     private final Discount.Code discountCode;
 
-    /// ## 16.4
-    public Quote(String shopName, double price, Discount.Code discountCode) {
+    /// ## 16.4, price in minor units
+    public Quote(String shopName, long price, Discount.Code discountCode) {
         this.shopName = shopName;
         this.price = price;
         this.discountCode = discountCode;
@@ -15,7 +15,7 @@ public class Quote {
     public static Quote parse(String s) {
         String[] split = s.split(":");
         String shopName = split[0];
-        double price = Double.parseDouble(split[1]);
+        long price = Prices.parse(split[1]);
         Discount.Code discountCode = Discount.Code.valueOf(split[2]);
         return new Quote(shopName, price, discountCode);
     }
@@ -24,7 +24,7 @@ public class Quote {
         return shopName;
     }
 
-    public double getPrice() {
+    public long getPrice() {
         return price;
     }
 
@@ -0,0 +1,170 @@
+package com.excella.modernjava.shop;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches shop answers per (shop, product) for a fixed time to live. Concurrent misses for the same key share the
+ * one in-flight CompletableFuture, so a burst of callers asking for the same product costs a single shop call.
+ * Failed calls aren't cached. An entry is queued when its load completes and every entry lives equally long from
+ * then on, so queue order is also expiry order and a FIFO queue is enough to drop expired entries and to evict the
+ * oldest ones once the cache is full. Entries still loading aren't in the queue and can't be evicted.
+ */
+public class QuoteCache {
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> loadOrder = new ConcurrentLinkedQueue<>();
+    private final long ttlNanos;
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QuoteCache(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    public CompletableFuture<String> get(String shop, String product, Supplier<CompletableFuture<String>> loader) {
+        Key key = new Key(shop, product);
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isExpired(now)) {
+            Entry created = new Entry(key);
+            entry = entries.compute(key, (k, old) -> old == null || old.isExpired(now) ? created : old);
+            if (entry == created) {
+                misses.increment();
+                evict(now);
+                load(created, loader);
+                return created.future;
+            }
+        }
+        if (entry.future.isDone()) {
+            hits.increment();
+        } else {
+            coalesced.increment();
+        }
+        return entry.future;
+    }
+
+    /// The loader runs outside compute so a slow shop never holds a map bin
+    private void load(Entry created, Supplier<CompletableFuture<String>> loader) {
+        CompletableFuture<String> loading;
+        try {
+            loading = loader.get();
+        } catch (Throwable error) {
+            entries.remove(created.key, created);
+            created.future.completeExceptionally(error);
+            return;
+        }
+        loading.whenComplete((price, error) -> {
+            if (error == null) {
+                long loadedAt = System.nanoTime();
+                created.expiresAt = loadedAt + ttlNanos;
+                created.loaded = true;
+                // queued once loaded, so a slow load never sits at the head holding back expiry and eviction
+                loadOrder.add(created);
+                created.future.complete(price);
+                evict(loadedAt);
+            } else {
+                entries.remove(created.key, created);
+                created.future.completeExceptionally(error);
+            }
+        });
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = loadOrder.peek()) != null
+                && (oldest.isExpired(now) || entries.size() > maxSize || entries.get(oldest.key) != oldest)) {
+            if (loadOrder.remove(oldest) && entries.remove(oldest.key, oldest) && !oldest.isExpired(now)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        loadOrder.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /// Callers that found the key already loading and waited on the same future
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /// Live entries dropped to stay within maxSize, expired ones aren't counted
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hits = getHits() + getCoalesced();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QuoteCache: size=%d hits=%d misses=%d coalesced=%d evictions=%d hitRatio=%.2f",
+                size(), getHits(), getMisses(), getCoalesced(), getEvictions(), getHitRatio());
+    }
+
+    private static final class Key {
+        private final String shop;
+        private final String product;
+
+        private Key(String shop, String product) {
+            this.shop = shop;
+            this.product = product;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return shop.equals(other.shop) && product.equals(other.product);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * shop.hashCode() + product.hashCode();
+        }
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private long expiresAt;
+        /// An entry that is still loading never expires; written after expiresAt so readers see both
+        private volatile boolean loaded;
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        private boolean isExpired(long now) {
+            return loaded && now - expiresAt > 0;
+        }
+    }
+}
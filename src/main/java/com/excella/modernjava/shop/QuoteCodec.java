@@ -0,0 +1,111 @@
+package com.excella.modernjava.shop;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and parses quotes without the garbage of Quote.parse, which allocates an array and three strings
+ * per quote (split, price parsing, valueOf). Two encodings:
+ * <ul>
+ *     <li>text, the "name:price:CODE" that Shop.getPrice returns, parsed from any CharSequence range</li>
+ *     <li>binary, [name length: 1 byte][name: Latin-1 bytes][code ordinal: 1 byte][price: 8 byte long minor units],
+ *     read from a ByteBuffer at its position</li>
+ * </ul>
+ * Both parse into a reusable {@link QuoteView}.
+ */
+public final class QuoteCodec {
+    public static final int MAX_NAME_LENGTH = 255;
+
+    private static final Discount.Code[] CODES = Discount.Code.values();
+
+    private QuoteCodec() {
+    }
+
+    public static QuoteView parse(CharSequence text, QuoteView view) {
+        return parse(text, 0, text.length(), view);
+    }
+
+    /// Parses "name:price:CODE" from text[start, end)
+    public static QuoteView parse(CharSequence text, int start, int end, QuoteView view) {
+        int nameEnd = indexOf(text, ':', start, end);
+        int priceEnd = indexOf(text, ':', nameEnd + 1, end);
+        long price = Prices.parse(text, nameEnd + 1, priceEnd);
+        Discount.Code code = parseCode(text, priceEnd + 1, end);
+        view.setText(text, start, nameEnd - start, price, code);
+        return view;
+    }
+
+    public static void write(ByteBuffer buffer, Quote quote) {
+        write(buffer, quote.getShopName(), quote.getPrice(), quote.getDiscountCode());
+    }
+
+    /// Writes the binary encoding at the buffer's position and advances it
+    public static void write(ByteBuffer buffer, CharSequence shopName, long price, Discount.Code code) {
+        int length = shopName.length();
+        if (length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Shop name longer than " + MAX_NAME_LENGTH + ": " + shopName);
+        }
+        buffer.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            char c = shopName.charAt(i);
+            if (c > 0xFF) {
+                throw new IllegalArgumentException("Shop name is not Latin-1: " + shopName);
+            }
+            buffer.put((byte) c);
+        }
+        buffer.put((byte) code.ordinal());
+        buffer.putLong(price);
+    }
+
+    /// Reads one binary quote at the buffer's position and advances it past the quote
+    public static QuoteView read(ByteBuffer buffer, QuoteView view) {
+        int position = buffer.position();
+        int nameLength = buffer.get(position) & 0xFF;
+        int codeAt = position + 1 + nameLength;
+        int ordinal = buffer.get(codeAt) & 0xFF;
+        if (ordinal >= CODES.length) {
+            throw new IllegalArgumentException("Unknown discount code ordinal " + ordinal + " at " + codeAt);
+        }
+        long price = buffer.getLong(codeAt + 1);
+        view.setBinary(buffer, position + 1, nameLength, price, CODES[ordinal]);
+        buffer.position(codeAt + 1 + Long.BYTES);
+        return view;
+    }
+
+    public static int binarySize(CharSequence shopName) {
+        return 1 + shopName.length() + 1 + Long.BYTES;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        throw malformed(text, from, end);
+    }
+
+    static Discount.Code parseCode(CharSequence text, int start, int end) {
+        int length = end - start;
+        for (Discount.Code code : CODES) {
+            String name = code.name();
+            if (name.length() == length && matches(text, start, name)) {
+                return code;
+            }
+        }
+        throw malformed(text, start, end);
+    }
+
+    private static boolean matches(CharSequence text, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (text.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static IllegalArgumentException malformed(CharSequence text, int start, int end) {
+        return new IllegalArgumentException("Malformed quote at [" + start + ", " + end + "): "
+                + text.subSequence(start, Math.max(start, end)));
+    }
+}
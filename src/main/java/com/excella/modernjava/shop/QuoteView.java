@@ -0,0 +1,86 @@
+package com.excella.modernjava.shop;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Mutable, reusable view of one encoded quote, filled in by {@link QuoteCodec}. The shop name isn't copied out,
+ * the view points into the parsed CharSequence or ByteBuffer, so a hot loop can parse millions of quotes into
+ * the same view without allocating. The view is only valid until the source is changed or the view reused.
+ */
+public final class QuoteView {
+    private CharSequence text;
+    private ByteBuffer bytes;
+    private int nameStart;
+    private int nameLength;
+    private long price;
+    private Discount.Code discountCode;
+
+    void setText(CharSequence text, int nameStart, int nameLength, long price, Discount.Code discountCode) {
+        this.text = text;
+        this.bytes = null;
+        set(nameStart, nameLength, price, discountCode);
+    }
+
+    void setBinary(ByteBuffer bytes, int nameStart, int nameLength, long price, Discount.Code discountCode) {
+        this.text = null;
+        this.bytes = bytes;
+        set(nameStart, nameLength, price, discountCode);
+    }
+
+    private void set(int nameStart, int nameLength, long price, Discount.Code discountCode) {
+        this.nameStart = nameStart;
+        this.nameLength = nameLength;
+        this.price = price;
+        this.discountCode = discountCode;
+    }
+
+    public int nameLength() {
+        return nameLength;
+    }
+
+    public char nameCharAt(int index) {
+        if (index < 0 || index >= nameLength) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return text != null ? text.charAt(nameStart + index) : (char) (bytes.get(nameStart + index) & 0xFF);
+    }
+
+    public boolean nameEquals(CharSequence name) {
+        if (name.length() != nameLength) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (nameCharAt(i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /// Copies the name out, allocating a String
+    public String getShopName() {
+        StringBuilder name = new StringBuilder(nameLength);
+        for (int i = 0; i < nameLength; i++) {
+            name.append(nameCharAt(i));
+        }
+        return name.toString();
+    }
+
+    /// Price in minor units, see Prices
+    public long getPrice() {
+        return price;
+    }
+
+    public Discount.Code getDiscountCode() {
+        return discountCode;
+    }
+
+    public Quote toQuote() {
+        return new Quote(getShopName(), price, discountCode);
+    }
+
+    @Override
+    public String toString() {
+        return Prices.append(new StringBuilder(getShopName()).append(':'), price).append(':').append(discountCode).toString();
+    }
+}
@@ -3,7 +3,6 @@ package com.excella.modernjava.shop;
 import java.util.Random;
 
 import static com.excella.modernjava.shop.FakeLongRunningOp.delay;
-import static com.excella.modernjava.shop.Util.format;
 
 public class Shop {
     private final String name;
@@ -15,13 +14,15 @@ public class Shop {
     }
 
     public String getPrice(String product) {
-        double price = calculatePrice(product);
-        return name + ":" + price;
+        long price = calculatePrice(product);
+        Discount.Code code = Discount.Code.values()[random.nextInt(Discount.Code.values().length)];
+        return Prices.append(new StringBuilder(name).append(':'), price).append(':').append(code).toString();
     }
 
-    public double calculatePrice(String product) {
+    /// Price in minor units, see Prices
+    public long calculatePrice(String product) {
         delay();
-        return format(random.nextDouble() * product.charAt(0) + product.charAt(1));
+        return Prices.fromDouble(random.nextDouble() * product.charAt(0) + product.charAt(1));
     }
 
     public String getName() {
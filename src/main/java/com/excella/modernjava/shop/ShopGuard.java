@@ -0,0 +1,84 @@
+package com.excella.modernjava.shop;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Rate limiter, bulkhead and circuit breaker in front of one shop, checked in that order so a refused call never
+ * holds a bulkhead slot or the breaker's half-open trial. A refused call fails at once with a
+ * RejectedExecutionException instead of taking a thread.
+ */
+public class ShopGuard {
+    private final String shopName;
+    private final TokenBucket rateLimiter;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public ShopGuard(String shopName, TokenBucket rateLimiter, Bulkhead bulkhead, CircuitBreaker circuitBreaker) {
+        this.shopName = shopName;
+        this.rateLimiter = rateLimiter;
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /// 50 calls a second with bursts of 50, 16 at a time, open for 5s when half the last 20 calls failed or took over 1.2s
+    public static ShopGuard withDefaults(String shopName) {
+        return new ShopGuard(shopName,
+                new TokenBucket(50, 50),
+                new Bulkhead(16),
+                new CircuitBreaker(20, 10, 0.5, Duration.ofMillis(1200), 0.5, Duration.ofSeconds(5)));
+    }
+
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        if (!rateLimiter.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(shopName + " is rate limited"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(shopName + " bulkhead is full"));
+        }
+        long permit = circuitBreaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(shopName + " circuit is open"));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((value, error) -> {
+            bulkhead.release();
+            circuitBreaker.record(permit, error == null, System.nanoTime() - start);
+        });
+    }
+
+    public String getShopName() {
+        return shopName;
+    }
+
+    public TokenBucket getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: circuit=%s opened=%d failures=%.0f%% slow=%.0f%% shortCircuited=%d "
+                        + "inFlight=%d/%d bulkheadRejected=%d throttled=%d permits=%d",
+                shopName, circuitBreaker.getState(), circuitBreaker.getTimesOpened(),
+                circuitBreaker.getFailureRate() * 100, circuitBreaker.getSlowCallRate() * 100,
+                circuitBreaker.getRejected(), bulkhead.getInFlight(), bulkhead.getMaxConcurrent(),
+                bulkhead.getRejected(), rateLimiter.getThrottled(), rateLimiter.getAvailablePermits());
+    }
+}
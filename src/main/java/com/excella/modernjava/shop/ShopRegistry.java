@@ -0,0 +1,85 @@
+package com.excella.modernjava.shop;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry for tens of thousands of shops, kept in a growable array, with a fixed set of executor lanes: shop i
+ * always runs on lane i % lanes, so the thread count depends on the lanes and not on the shops, and a lane backed
+ * up by slow shops doesn't hold back the shops on the other lanes.
+ */
+public class ShopRegistry {
+    private volatile Shop[] shops = new Shop[64];
+    private volatile int size;
+    private final ThreadPoolExecutor[] lanes;
+
+    public ShopRegistry(int laneCount, int threadsPerLane) {
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int lane = 0; lane < laneCount; lane++) {
+            String name = "shop-lane-" + lane + "-";
+            AtomicInteger count = new AtomicInteger();
+            lanes[lane] = new ThreadPoolExecutor(threadsPerLane, threadsPerLane, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), (Runnable r) -> {
+                        Thread t = new Thread(r, name + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            lanes[lane].allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /// A registry holding count generated shops named Shop-0 .. Shop-(count - 1)
+    public static ShopRegistry of(int count, int laneCount, int threadsPerLane) {
+        ShopRegistry registry = new ShopRegistry(laneCount, threadsPerLane);
+        for (int i = 0; i < count; i++) {
+            registry.register(new Shop("Shop-" + i));
+        }
+        return registry;
+    }
+
+    /// Returns the index of the shop, which also picks its lane
+    public synchronized int register(Shop shop) {
+        Shop[] current = shops;
+        int index = size;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, index * 2);
+        }
+        current[index] = shop;
+        shops = current;
+        // published last, so a reader that sees the new size also sees the shop
+        size = index + 1;
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Shop get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return shops[index];
+    }
+
+    public Executor laneOf(int index) {
+        return lanes[index % lanes.length];
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /// Tasks waiting on each lane
+    public int[] getQueueDepths() {
+        int[] depths = new int[lanes.length];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            depths[lane] = lanes[lane].getQueue().size();
+        }
+        return depths;
+    }
+}
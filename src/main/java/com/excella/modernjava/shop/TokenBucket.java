@@ -0,0 +1,58 @@
+package com.excella.modernjava.shop;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free rate limiter allowing permitsPerSecond on average with bursts of up to capacity. Rather than a token
+ * count plus a refill timestamp, which would need a lock to update together, the bucket is a single AtomicLong
+ * holding the time at which it would be full again (the generic cell rate algorithm): taking a token pushes that
+ * time one interval further, and a token is refused when it would land more than capacity intervals ahead.
+ */
+public class TokenBucket {
+    private final long nanosPerPermit;
+    private final long burstNanos;
+    private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+    private final LongAdder permitted = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Need a positive rate and a capacity of at least 1");
+        }
+        this.nanosPerPermit = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = nanosPerPermit * capacity;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current - now, 0) + now + nanosPerPermit;
+            if (next - now > burstNanos) {
+                throttled.increment();
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                permitted.increment();
+                return true;
+            }
+        }
+    }
+
+    /// Tokens that could be taken right now
+    public long getAvailablePermits() {
+        long debt = Math.max(fullAt.get() - System.nanoTime(), 0);
+        return (burstNanos - debt) / nanosPerPermit;
+    }
+
+    public long getPermitted() {
+        return permitted.sum();
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+}
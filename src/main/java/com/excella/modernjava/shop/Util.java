@@ -6,30 +6,20 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class Util {
     private static final Random RANDOM = new Random(0);
     private static final DecimalFormat formatter = new DecimalFormat("#.##", new DecimalFormatSymbols(Locale.US));
 
+    /// Prices are now rounded as minor units by Prices, this is kept as the baseline of PriceFormatBenchmark
     public static double format(double number) {
         synchronized (formatter) {
             return new Double(formatter.format(number));
         }
     }
 
+    /// Used to park a common pool worker in join() until every future was done, see Futures for the callback version
     public static <T> CompletableFuture<List<T>> sequence(List<CompletableFuture<T>> futures) {
-        /*
-            CompletableFuture<Void> allDoneFuture =
-                CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]));
-            return allDoneFuture.thenApply(v ->
-                futures.stream()
-                    .map(future -> future.join())
-                    .collect(Collectors.<T>toList())
-            );
-        */
-        return CompletableFuture.supplyAsync(() -> futures.stream()
-                .map(future -> future.join())
-                .collect(Collectors.<T>toList()));
+        return Futures.sequence(futures);
     }
 }
@@ -0,0 +1,152 @@
+package com.excella.modernjava.shop;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Every combinator is called on futures that haven't completed yet, then the test checks that no thread is
+ * parked waiting on a CompletableFuture: a thread blocked in join() or get() has CompletableFuture$Signaller
+ * on its stack.
+ */
+public class FuturesTest {
+
+    @Test
+    public void sequence_parks_no_thread_and_keeps_input_order() throws Exception {
+        List<CompletableFuture<String>> futures = pending(3);
+        CompletableFuture<List<String>> result = Futures.sequence(futures);
+
+        assertEquals(0, parkedThreads());
+        futures.get(2).complete("c");
+        futures.get(0).complete("a");
+        assertFalse(result.isDone());
+        futures.get(1).complete("b");
+        assertEquals(List.of("a", "b", "c"), result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sequence_fails_on_first_failure() {
+        List<CompletableFuture<String>> futures = pending(2);
+        CompletableFuture<List<String>> result = Futures.sequence(futures);
+
+        futures.get(1).completeExceptionally(new IllegalStateException("shop down"));
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    public void util_sequence_no_longer_parks_a_pool_thread() throws Exception {
+        List<CompletableFuture<String>> futures = pending(2);
+        CompletableFuture<List<String>> result = Util.sequence(futures);
+
+        Thread.sleep(50);
+        assertEquals(0, parkedThreads());
+        futures.forEach(f -> f.complete("x"));
+        assertEquals(List.of("x", "x"), result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void first_successful_skips_failures() throws Exception {
+        List<CompletableFuture<String>> futures = pending(3);
+        CompletableFuture<String> result = Futures.firstSuccessful(futures);
+
+        assertEquals(0, parkedThreads());
+        futures.get(0).completeExceptionally(new IllegalStateException("shop down"));
+        assertFalse(result.isDone());
+        futures.get(2).complete("c");
+        futures.get(1).complete("b");
+        assertEquals("c", result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void first_successful_fails_when_all_fail() {
+        List<CompletableFuture<String>> futures = pending(2);
+        CompletableFuture<String> result = Futures.firstSuccessful(futures);
+
+        futures.forEach(f -> f.completeExceptionally(new IllegalStateException("shop down")));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals(1, error.getCause().getSuppressed().length);
+    }
+
+    @Test
+    public void quorum_completes_with_first_k_results() throws Exception {
+        List<CompletableFuture<String>> futures = pending(4);
+        CompletableFuture<List<String>> result = Futures.quorum(futures, 2);
+
+        assertEquals(0, parkedThreads());
+        futures.get(3).complete("d");
+        futures.get(0).completeExceptionally(new IllegalStateException("shop down"));
+        assertFalse(result.isDone());
+        futures.get(1).complete("b");
+        assertEquals(List.of("d", "b"), result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void quorum_fails_once_unreachable() {
+        List<CompletableFuture<String>> futures = pending(3);
+        CompletableFuture<List<String>> result = Futures.quorum(futures, 2);
+
+        futures.get(0).completeExceptionally(new IllegalStateException("shop down"));
+        assertFalse(result.isDone());
+        futures.get(1).completeExceptionally(new IllegalStateException("shop down"));
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    public void all_within_deadline_returns_partial_results() throws Exception {
+        List<CompletableFuture<String>> futures = pending(3);
+        CompletableFuture<List<String>> result = Futures.allWithinDeadline(futures, Duration.ofMillis(200));
+
+        assertEquals(0, parkedThreads());
+        futures.get(2).complete("c");
+        futures.get(1).completeExceptionally(new IllegalStateException("shop down"));
+        assertEquals(List.of("c"), result.get(2, TimeUnit.SECONDS));
+        futures.get(0).complete("late");
+        assertEquals(List.of("c"), result.get());
+    }
+
+    @Test
+    public void all_within_deadline_completes_early_when_all_done() throws Exception {
+        List<CompletableFuture<String>> futures = pending(2);
+        CompletableFuture<List<String>> result = Futures.allWithinDeadline(futures, Duration.ofMinutes(1));
+
+        futures.forEach(f -> f.complete("x"));
+        assertEquals(List.of("x", "x"), result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void race_cancels_the_losers() throws Exception {
+        List<CompletableFuture<String>> futures = pending(3);
+        CompletableFuture<String> result = Futures.raceWithCancellation(futures);
+
+        assertEquals(0, parkedThreads());
+        futures.get(1).complete("b");
+        assertEquals("b", result.get(1, TimeUnit.SECONDS));
+        assertTrue(futures.get(0).isCancelled());
+        assertTrue(futures.get(2).isCancelled());
+    }
+
+    private static List<CompletableFuture<String>> pending(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new CompletableFuture<String>())
+                .collect(toList());
+    }
+
+    private static long parkedThreads() {
+        return Thread.getAllStackTraces().values().stream()
+                .filter(stack -> Arrays.stream(stack)
+                        .anyMatch(frame -> frame.getClassName().equals("java.util.concurrent.CompletableFuture$Signaller")))
+                .count();
+    }
+}